@@ -0,0 +1,146 @@
+package com.swarts.customerservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Adjusts the calls allowed in flight to a downstream service from the observed round trip times,
+ * following TCP Vegas: the queue at the downstream is estimated as
+ * {@code limit * (1 - noLoadRtt / rtt)}; the limit grows while it is below {@code alpha} and
+ * shrinks once it is above {@code beta}. Failed calls shrink the limit by {@code backoffRatio}, and
+ * so do calls cancelled once they used up the time budget of their {@link Deadline#HEADER}, as
+ * timeouts and deadlines end calls by cancelling them; other cancelled calls, such as lost hedges,
+ * are not sampled. Calls over the limit wait up to {@code queueTimeout} and are then rejected with
+ * a {@link ClientException#isRejected() rejected} {@code 503}. A call is in flight, and its round
+ * trip time measured, until its response body has been read.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /**
+   * The deadline header is written shortly after the timer of the call was started, so a call is
+   * taken to have timed out once it has run to within this margin of its budget.
+   */
+  private static final long TIMEOUT_MARGIN_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final ConcurrencyLimitProperties properties;
+  private final ConcurrencyLimiter limiter;
+  private final Counter rejected;
+
+  private double limit;
+  private long noLoadRttNanos;
+  private int samples;
+
+  public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.limit = properties.getInitialLimit();
+    this.limiter = new ConcurrencyLimiter(properties.getInitialLimit(), properties.getMaxQueued());
+    this.rejected = Counter.builder("client.concurrency.rejected")
+        .tag("name", name)
+        .register(meterRegistry);
+    Gauge.builder("client.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+        .tag("name", name)
+        .register(meterRegistry);
+    Gauge.builder("client.concurrency.in.flight", limiter, ConcurrencyLimiter::getInFlight)
+        .tag("name", name)
+        .register(meterRegistry);
+  }
+
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> limiter.acquire()
+        .timeout(properties.getQueueTimeout(),
+            Mono.defer(() -> Mono.error(ClientException.rejected("Concurrency limit exceeded"))))
+        .doOnError(ClientException::isRejected, e -> rejected.increment())
+        .flatMap(permit -> {
+          long start = System.nanoTime();
+          int inFlight = limiter.getInFlight();
+          long budgetNanos = budgetNanos(request);
+          AtomicBoolean responded = new AtomicBoolean();
+          AtomicBoolean ended = new AtomicBoolean();
+          // the call ends with its body: sampled once, when the body has been read
+          BiConsumer<SignalType, Boolean> end = (signal, failed) -> {
+            if (!ended.compareAndSet(false, true)) {
+              return;
+            }
+            long rttNanos = System.nanoTime() - start;
+            if (signal != SignalType.CANCEL) {
+              onSample(rttNanos, inFlight, failed);
+            } else if (rttNanos + TIMEOUT_MARGIN_NANOS >= budgetNanos) {
+              onSample(rttNanos, inFlight, true);
+            }
+            permit.release();
+          };
+          return next.exchange(request)
+              .map(response -> {
+                responded.set(true);
+                boolean failed = response.statusCode().is5xxServerError();
+                return ClientResponses.doFinallyBody(response,
+                    signal -> end.accept(signal, failed || signal == SignalType.ON_ERROR));
+              })
+              .doOnError(e -> end.accept(SignalType.ON_ERROR, true))
+              .doOnCancel(() -> {
+                if (!responded.get()) {
+                  end.accept(SignalType.CANCEL, true);
+                }
+              });
+        });
+  }
+
+  /**
+   * Returns the time the call was given, from its deadline header.
+   */
+  private static long budgetNanos(ClientRequest request) {
+    String remaining = request.headers().getFirst(Deadline.HEADER);
+    if (remaining != null) {
+      try {
+        return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(remaining));
+      } catch (NumberFormatException e) {
+        // no budget below
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  public int getLimit() {
+    return limiter.getLimit();
+  }
+
+  synchronized void onSample(long rttNanos, int inFlight, boolean failed) {
+    if (failed) {
+      update(limit * properties.getBackoffRatio());
+      return;
+    }
+
+    samples++;
+    boolean probe = samples >= properties.getProbeInterval();
+    if (noLoadRttNanos == 0 || rttNanos < noLoadRttNanos || probe) {
+      noLoadRttNanos = rttNanos;
+      samples = 0;
+    }
+    // a limit that is not used cannot tell whether it could be higher
+    if (inFlight * 2 < limit) {
+      return;
+    }
+
+    double queue = limit * (1 - (double) noLoadRttNanos / rttNanos);
+    double step = Math.max(1, Math.log10(limit));
+    if (queue < properties.getAlpha() * step) {
+      update(limit + step);
+    } else if (queue > properties.getBeta() * step) {
+      update(limit - step);
+    }
+  }
+
+  private void update(double newLimit) {
+    limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    limiter.setLimit((int) limit);
+  }
+}
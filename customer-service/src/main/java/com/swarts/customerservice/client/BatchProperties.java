@@ -0,0 +1,29 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Micro-batching settings of the single reads from a downstream service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProperties {
+
+  @Builder.Default
+  private boolean enabled = false;
+
+  /**
+   * Time a read waits for other reads to share its batch.
+   */
+  @Builder.Default
+  private Duration window = Duration.ofMillis(2);
+
+  @Builder.Default
+  private int maxBatchSize = 50;
+}
@@ -0,0 +1,52 @@
+package com.swarts.customerservice.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitBreakerProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  /**
+   * Failure rate, in percent, at which the breaker opens.
+   */
+  @Builder.Default
+  private float failureRateThreshold = 50;
+
+  /**
+   * Rate of calls slower than {@code slowCallDurationThreshold}, in percent, at which the
+   * breaker opens.
+   */
+  @Builder.Default
+  private float slowCallRateThreshold = 80;
+
+  @Builder.Default
+  private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+
+  @Builder.Default
+  private SlidingWindowType slidingWindowType = SlidingWindowType.COUNT_BASED;
+
+  /**
+   * Number of calls, or seconds for a time based window, the rates are computed over.
+   */
+  @Builder.Default
+  private int slidingWindowSize = 20;
+
+  @Builder.Default
+  private int minimumNumberOfCalls = 10;
+
+  @Builder.Default
+  private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+  @Builder.Default
+  private int permittedNumberOfCallsInHalfOpenState = 3;
+}
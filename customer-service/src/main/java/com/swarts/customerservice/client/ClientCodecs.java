@@ -0,0 +1,68 @@
+package com.swarts.customerservice.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ClientCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+
+public final class ClientCodecs {
+
+  public static final MediaType APPLICATION_NDJSON =
+      MediaType.parseMediaType("application/x-ndjson");
+
+  private ClientCodecs() {
+  }
+
+  /**
+   * Registers a JSON decoder that also reads {@code application/x-ndjson}. Both JSON arrays and
+   * newline delimited JSON are decoded element by element when read with {@code bodyToFlux}, so
+   * {@code maxInMemorySize} bounds the bytes buffered for a single element.
+   */
+  public static Consumer<ClientCodecConfigurer> streamingJson(DataSize maxInMemorySize) {
+    return configurer -> {
+      Jackson2JsonDecoder decoder = new Jackson2JsonDecoder(
+          Jackson2ObjectMapperBuilder.json().build(),
+          MediaType.APPLICATION_JSON,
+          new MediaType("application", "*+json"),
+          APPLICATION_NDJSON);
+      decoder.setMaxInMemorySize((int) maxInMemorySize.toBytes());
+      configurer.defaultCodecs().jackson2JsonDecoder(decoder);
+      configurer.defaultCodecs().maxInMemorySize((int) maxInMemorySize.toBytes());
+    };
+  }
+
+  /**
+   * Fails a response with a {@link DataBufferLimitException} once its body exceeds
+   * {@code maxSize}, releasing the buffers that were not passed on.
+   */
+  public static ExchangeFilterFunction limitResponseSize(DataSize maxSize) {
+    return (request, next) -> next.exchange(request)
+        .map(response -> ClientResponse.from(response)
+            .body(limit(response.bodyToFlux(DataBuffer.class), maxSize.toBytes()))
+            .build());
+  }
+
+  private static Flux<DataBuffer> limit(Flux<DataBuffer> body, long maxSize) {
+    return Flux.defer(() -> {
+      AtomicLong total = new AtomicLong();
+      return body.handle((buffer, sink) -> {
+        if (total.addAndGet(buffer.readableByteCount()) > maxSize) {
+          DataBufferUtils.release(buffer);
+          sink.error(new DataBufferLimitException(
+              "Exceeded limit on response size of " + maxSize + " bytes"));
+        } else {
+          sink.next(buffer);
+        }
+      });
+    });
+  }
+}
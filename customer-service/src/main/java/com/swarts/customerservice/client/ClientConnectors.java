@@ -0,0 +1,71 @@
+package com.swarts.customerservice.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+public final class ClientConnectors {
+
+  private ClientConnectors() {
+  }
+
+  /**
+   * Configures the transport of a downstream service: a dedicated connection pool speaking the
+   * configured protocol. With {@link HttpProtocol#H2C} requests are multiplexed over the pooled
+   * connections, at most {@code maxConcurrentStreams} per connection. When {@code instances} are
+   * configured requests are load balanced over them, otherwise they go to {@code url}. The calls
+   * in flight are limited by an {@link AdaptiveConcurrencyLimiter}.
+   */
+  public static Consumer<WebClient.Builder> configure(String name,
+      DownstreamProperties properties, MeterRegistry meterRegistry) {
+    ConnectionPoolProperties pool = properties.getPool();
+    List<String> instances = properties.getInstances();
+    return builder -> {
+      builder.clientConnector(create(name, pool, properties.getProtocol()));
+      if (properties.getConcurrencyLimit().isEnabled()) {
+        builder.filter(new AdaptiveConcurrencyLimiter(name, properties.getConcurrencyLimit(),
+            meterRegistry).filter());
+      }
+      if (instances.isEmpty()) {
+        builder.baseUrl(properties.getUrl());
+      } else {
+        builder.baseUrl(instances.get(0))
+            .filter(new LoadBalancer(name, instances, properties.getLoadBalancer(), meterRegistry)
+                .filter());
+      }
+      if (properties.getProtocol() == HttpProtocol.H2C) {
+        builder.filter(new ConcurrencyLimiter(
+            pool.getMaxConnections() * properties.getMaxConcurrentStreams(),
+            pool.getPendingAcquireMaxCount()).filter());
+      }
+    };
+  }
+
+  /**
+   * Creates a connector backed by a dedicated, named connection pool. When metrics are enabled
+   * Reactor Netty publishes the {@code reactor.netty.connection.provider.*} gauges (total, active,
+   * idle and pending connections) tagged with the pool name.
+   */
+  public static ClientHttpConnector create(String name, ConnectionPoolProperties pool,
+      HttpProtocol protocol) {
+    ConnectionProvider.Builder builder = ConnectionProvider.builder(name)
+        .maxConnections(pool.getMaxConnections())
+        .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+        .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+        .maxIdleTime(pool.getMaxIdleTime())
+        .maxLifeTime(pool.getMaxLifeTime())
+        .metrics(pool.isMetricsEnabled());
+
+    if (!pool.getEvictionInterval().isZero()) {
+      builder.evictInBackground(pool.getEvictionInterval());
+    }
+
+    return new ReactorClientHttpConnector(HttpClient.create(builder.build()).protocol(protocol));
+  }
+}
@@ -1,22 +1,70 @@
 package com.swarts.customerservice.client;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
 import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
 
 @Getter
 public class ClientException extends RuntimeException {
 
+  /**
+   * Error bodies larger than this are discarded.
+   */
+  static final int MAX_ERROR_BODY_SIZE = 4 * 1024;
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
   private final HttpStatus status;
 
+  /**
+   * Error body of the downstream response, {@code null} when it was missing, too large or
+   * malformed.
+   */
+  private final ClientError error;
+
+  /**
+   * Set when the call was rejected locally, without reaching the downstream service.
+   */
+  private final boolean rejected;
+
   public ClientException(HttpStatus status, String message) {
+    this(status, message, null, false);
+  }
+
+  private ClientException(HttpStatus status, String message, ClientError error,
+      boolean rejected) {
     super(message);
     this.status = status;
+    this.error = error;
+    this.rejected = rejected;
   }
 
-  public static ClientException from(ClientResponse response) {
-    return new ClientException(response.statusCode(),
-        response.toEntity(ClientError.class).toString());
+  /**
+   * Reads the error body of the response, at most {@link #MAX_ERROR_BODY_SIZE} bytes, so the
+   * connection is released in a clean state.
+   */
+  public static Mono<ClientException> from(ClientResponse response) {
+    HttpStatus status = response.statusCode();
+    return DataBufferUtils.join(response.body(BodyExtractors.toDataBuffers()), MAX_ERROR_BODY_SIZE)
+        .flatMap(buffer -> Mono.justOrEmpty(decode(buffer)))
+        .onErrorResume(e -> Mono.empty())
+        .map(error -> new ClientException(status,
+            error.getMessage() != null ? error.getMessage() : status.getReasonPhrase(), error,
+            false))
+        .defaultIfEmpty(new ClientException(status, status.getReasonPhrase()));
+  }
+
+  public static ClientException rejected(String message) {
+    return new ClientException(HttpStatus.SERVICE_UNAVAILABLE, message, null, true);
   }
 
   public boolean isClientError() {
@@ -36,4 +84,17 @@ public class ClientException extends RuntimeException {
     return throwable instanceof ClientException
         && ((ClientException) throwable).isServerError();
   }
+
+  public static boolean isRejected(Throwable throwable) {
+    return throwable instanceof ClientException
+        && ((ClientException) throwable).isRejected();
+  }
+
+  private static ClientError decode(DataBuffer buffer) {
+    try (InputStream body = buffer.asInputStream(true)) {
+      return OBJECT_MAPPER.readValue(body, ClientError.class);
+    } catch (IOException e) {
+      return null;
+    }
+  }
 }
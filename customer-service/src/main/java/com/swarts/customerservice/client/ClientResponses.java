@@ -0,0 +1,40 @@
+package com.swarts.customerservice.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Helpers for exchange filters that hold on to something for the whole exchange.
+ */
+final class ClientResponses {
+
+  private ClientResponses() {
+  }
+
+  /**
+   * Returns {@code response} with a body that runs {@code action} once when it completes, fails or
+   * is cancelled. The exchange ends with the body, not with the headers, since every response body
+   * has to be either consumed or released.
+   */
+  static ClientResponse doFinallyBody(ClientResponse response, Runnable action) {
+    return doFinallyBody(response, signal -> action.run());
+  }
+
+  /**
+   * Returns {@code response} with a body that passes the signal it ended with to {@code action}.
+   */
+  static ClientResponse doFinallyBody(ClientResponse response, Consumer<SignalType> action) {
+    AtomicBoolean done = new AtomicBoolean();
+    return ClientResponse.from(response)
+        .body(response.bodyToFlux(DataBuffer.class)
+            .doFinally(signal -> {
+              if (done.compareAndSet(false, true)) {
+                action.accept(signal);
+              }
+            }))
+        .build();
+  }
+}
@@ -0,0 +1,65 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Settings of the adaptive limit on the calls in flight to a single downstream service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConcurrencyLimitProperties {
+
+  @Builder.Default
+  private boolean enabled = false;
+
+  @Builder.Default
+  private int initialLimit = 20;
+
+  @Builder.Default
+  private int minLimit = 5;
+
+  @Builder.Default
+  private int maxLimit = 200;
+
+  /**
+   * Calls over the limit wait at most this long for a slot before they are rejected.
+   */
+  @Builder.Default
+  private Duration queueTimeout = Duration.ofMillis(50);
+
+  @Builder.Default
+  private int maxQueued = 100;
+
+  /**
+   * Estimated number of queued requests at the downstream below which the limit grows, scaled by
+   * {@code log10(limit)}.
+   */
+  @Builder.Default
+  private double alpha = 3;
+
+  /**
+   * Estimated number of queued requests at the downstream above which the limit shrinks, scaled
+   * by {@code log10(limit)}.
+   */
+  @Builder.Default
+  private double beta = 6;
+
+  /**
+   * Factor the limit is multiplied with after a failed call, or a call cancelled once it used up
+   * the time budget of its deadline header.
+   */
+  @Builder.Default
+  private double backoffRatio = 0.9;
+
+  /**
+   * Number of samples after which the no-load latency is measured again.
+   */
+  @Builder.Default
+  private int probeInterval = 1000;
+}
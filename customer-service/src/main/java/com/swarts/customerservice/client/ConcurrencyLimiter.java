@@ -0,0 +1,127 @@
+package com.swarts.customerservice.client;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Limits the number of exchanges in flight. Exchanges over the limit wait in a bounded queue and
+ * are rejected with a {@link ClientException#isRejected() rejected} {@code 503} once it is full.
+ */
+public class ConcurrencyLimiter {
+
+  private final int maxQueued;
+  private final Queue<Waiter> waiters = new ArrayDeque<>();
+  private int limit;
+  private int inFlight;
+
+  public ConcurrencyLimiter(int limit, int maxQueued) {
+    this.limit = limit;
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * Holds a permit until the response body has been read, so that streamed bodies count as well.
+   */
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> acquire()
+        .flatMap(permit -> next.exchange(request)
+            .map(response -> ClientResponses.doFinallyBody(response, permit::release))
+            .doOnError(e -> permit.release())
+            .doOnCancel(permit::release));
+  }
+
+  public Mono<Permit> acquire() {
+    return Mono.create(sink -> {
+      Waiter waiter = new Waiter(sink);
+      boolean granted;
+      synchronized (this) {
+        granted = inFlight < limit;
+        if (granted) {
+          inFlight++;
+        } else if (waiters.size() < maxQueued) {
+          waiters.add(waiter);
+        } else {
+          sink.error(ClientException.rejected("Too many requests in flight"));
+          return;
+        }
+      }
+      if (granted) {
+        waiter.grant();
+      } else {
+        sink.onCancel(() -> cancel(waiter));
+      }
+    });
+  }
+
+  public synchronized int getLimit() {
+    return limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  public void setLimit(int limit) {
+    Queue<Waiter> granted = new ArrayDeque<>();
+    synchronized (this) {
+      this.limit = limit;
+      while (inFlight < limit && !waiters.isEmpty()) {
+        inFlight++;
+        granted.add(waiters.poll());
+      }
+    }
+    granted.forEach(Waiter::grant);
+  }
+
+  private void release() {
+    Waiter next;
+    synchronized (this) {
+      next = inFlight <= limit ? waiters.poll() : null;
+      if (next == null) {
+        inFlight--;
+        return;
+      }
+    }
+    next.grant();
+  }
+
+  private void cancel(Waiter waiter) {
+    boolean queued;
+    synchronized (this) {
+      queued = waiters.remove(waiter);
+    }
+    if (!queued) {
+      // the permit was granted while the waiter was cancelled
+      waiter.permit.release();
+    }
+  }
+
+  public class Permit {
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        ConcurrencyLimiter.this.release();
+      }
+    }
+  }
+
+  private class Waiter {
+
+    private final MonoSink<Permit> sink;
+    private final Permit permit = new Permit();
+
+    private Waiter(MonoSink<Permit> sink) {
+      this.sink = sink;
+    }
+
+    private void grant() {
+      sink.success(permit);
+    }
+  }
+}
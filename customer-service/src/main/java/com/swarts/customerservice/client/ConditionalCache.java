@@ -0,0 +1,164 @@
+package com.swarts.customerservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the last response of each resource of a downstream service together with its
+ * {@code ETag} and {@code Last-Modified} validators, and sends them with the next request of the
+ * resource. A {@code 304 Not Modified} answer is served from the kept response without reading or
+ * decoding a body. Responses over {@code maxEntrySize} are not kept.
+ */
+public class ConditionalCache<T> {
+
+  private final Cache<String, Entry<T>> store;
+  private final long maxEntrySize;
+  private final Counter modified;
+  private final Counter notModified;
+  private final AtomicLong bytesSaved = new AtomicLong();
+
+  public ConditionalCache(String name, ConditionalRequestProperties properties,
+      MeterRegistry meterRegistry) {
+    this.store = properties.isEnabled()
+        ? Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxSize().toBytes())
+            .weigher((String key, Entry<T> entry) -> (int) Math.min(entry.size, Integer.MAX_VALUE))
+            .build()
+        : null;
+    this.maxEntrySize = properties.getMaxEntrySize().toBytes();
+    this.modified = Counter.builder("client.conditional.requests")
+        .tag("name", name)
+        .tag("result", "modified")
+        .register(meterRegistry);
+    this.notModified = Counter.builder("client.conditional.requests")
+        .tag("name", name)
+        .tag("result", "not_modified")
+        .register(meterRegistry);
+    FunctionCounter.builder("client.conditional.bytes.saved", bytesSaved, AtomicLong::get)
+        .tag("name", name)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("client.conditional.not.modified.ratio", this, ConditionalCache::notModifiedRatio)
+        .tag("name", name)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Sends the request of the resource {@code key} with the validators of its kept response.
+   *
+   * @param request sends the request after applying the given validators to its headers
+   * @param decoder decodes a {@code 2xx} response
+   */
+  public Mono<T> mono(String key, Function<Consumer<HttpHeaders>, Mono<ClientResponse>> request,
+      Function<ClientResponse, Mono<T>> decoder) {
+    return flux(key, request, response -> decoder.apply(response).flux()).singleOrEmpty();
+  }
+
+  /**
+   * Like {@link #mono}, for a resource of several elements.
+   */
+  public Flux<T> flux(String key, Function<Consumer<HttpHeaders>, Mono<ClientResponse>> request,
+      Function<ClientResponse, Flux<T>> decoder) {
+    return Flux.defer(() -> {
+      Entry<T> entry = store != null ? store.getIfPresent(key) : null;
+      return request.apply(headers -> {
+        if (entry != null) {
+          entry.applyTo(headers);
+        }
+      }).flatMapMany(response -> {
+        if (entry != null && response.statusCode() == HttpStatus.NOT_MODIFIED) {
+          notModified.increment();
+          bytesSaved.addAndGet(entry.size);
+          return response.releaseBody().thenMany(Flux.fromIterable(entry.values));
+        }
+        if (response.statusCode().isError()) {
+          return ClientException.from(response).flatMapMany(Flux::error);
+        }
+        return decode(key, response, decoder);
+      });
+    });
+  }
+
+  private Flux<T> decode(String key, ClientResponse response,
+      Function<ClientResponse, Flux<T>> decoder) {
+    modified.increment();
+    HttpHeaders headers = response.headers().asHttpHeaders();
+    String etag = headers.getETag();
+    long lastModified = headers.getLastModified();
+    if (store == null || (etag == null && lastModified < 0)) {
+      return decoder.apply(response);
+    }
+    AtomicLong size = new AtomicLong();
+    ClientResponse counted = ClientResponse.from(response)
+        .body(response.bodyToFlux(DataBuffer.class)
+            .doOnNext(buffer -> size.addAndGet(buffer.readableByteCount())))
+        .build();
+    // values are only collected while the body stays within maxEntrySize
+    ArrayList<T> values = new ArrayList<>();
+    AtomicBoolean tooLarge = new AtomicBoolean();
+    return decoder.apply(counted)
+        .doOnNext(value -> {
+          if (tooLarge.get()) {
+            return;
+          }
+          if (size.get() > maxEntrySize) {
+            tooLarge.set(true);
+            values.clear();
+            values.trimToSize();
+          } else {
+            values.add(value);
+          }
+        })
+        .doOnComplete(() -> {
+          if (!tooLarge.get() && size.get() <= maxEntrySize) {
+            store.put(key, new Entry<>(Collections.unmodifiableList(values), etag, lastModified,
+                size.get()));
+          }
+        });
+  }
+
+  private double notModifiedRatio() {
+    double total = modified.count() + notModified.count();
+    return total > 0 ? notModified.count() / total : 0;
+  }
+
+  private static class Entry<T> {
+
+    private final List<T> values;
+    private final String etag;
+    private final long lastModified;
+    private final long size;
+
+    private Entry(List<T> values, String etag, long lastModified, long size) {
+      this.values = values;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+
+    private void applyTo(HttpHeaders headers) {
+      if (etag != null) {
+        headers.setIfNoneMatch(etag);
+      } else {
+        headers.setIfModifiedSince(lastModified);
+      }
+    }
+  }
+}
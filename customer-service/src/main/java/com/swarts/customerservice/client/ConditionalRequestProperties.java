@@ -0,0 +1,33 @@
+package com.swarts.customerservice.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Conditional request settings of the reads from a single downstream service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConditionalRequestProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  /**
+   * Maximum total size of the response bodies kept to answer {@code 304 Not Modified}.
+   */
+  @Builder.Default
+  private DataSize maxSize = DataSize.ofMegabytes(32);
+
+  /**
+   * Maximum size of a single kept response body. Larger responses are decoded as they arrive
+   * without being kept.
+   */
+  @Builder.Default
+  private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+}
@@ -0,0 +1,42 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Connection pool settings of a single downstream service. Each downstream gets its own named
+ * pool, so a slow service can only exhaust its own connections.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionPoolProperties {
+
+  @Builder.Default
+  private int maxConnections = 50;
+
+  @Builder.Default
+  private int pendingAcquireMaxCount = 100;
+
+  @Builder.Default
+  private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+  @Builder.Default
+  private Duration maxIdleTime = Duration.ofSeconds(30);
+
+  @Builder.Default
+  private Duration maxLifeTime = Duration.ofMinutes(5);
+
+  /**
+   * Interval of the background eviction of idle and expired connections, disabled when zero.
+   */
+  @Builder.Default
+  private Duration evictionInterval = Duration.ofSeconds(30);
+
+  @Builder.Default
+  private boolean metricsEnabled = true;
+}
@@ -0,0 +1,84 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Point in time by which a request has to be answered. The request deadline is carried in the
+ * Reactor {@link Context}, every downstream call gets the smaller of the remaining request budget
+ * and its own call timeout, and sends what is left of it to the downstream service.
+ */
+public final class Deadline {
+
+  public static final String HEADER = "X-Deadline-Remaining-Ms";
+
+  private final long expiresAt;
+
+  private Deadline(long expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+
+  public static Deadline after(Duration timeout) {
+    return new Deadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  public static Function<Context, Context> attach(Duration timeout) {
+    return context -> context.put(Deadline.class, after(timeout));
+  }
+
+  public static <T> Mono<T> limit(Duration callTimeout, Function<Deadline, Mono<T>> call) {
+    return Mono.subscriberContext().flatMap(context -> {
+      Deadline deadline = forCall(context, callTimeout);
+      if (deadline.isExpired()) {
+        return Mono.error(new DeadlineExceededException());
+      }
+      return call.apply(deadline)
+          .timeout(deadline.remaining(), Mono.error(new DeadlineExceededException()));
+    });
+  }
+
+  public static <T> Flux<T> limitMany(Duration callTimeout, Function<Deadline, Flux<T>> call) {
+    return Mono.subscriberContext().flatMapMany(context -> {
+      Deadline deadline = forCall(context, callTimeout);
+      if (deadline.isExpired()) {
+        return Flux.error(new DeadlineExceededException());
+      }
+      return deadline.bound(call.apply(deadline));
+    });
+  }
+
+  /**
+   * Fails {@code items} with a {@link DeadlineExceededException} unless it completes in time.
+   */
+  public <T> Flux<T> bound(Flux<T> items) {
+    return Flux.defer(() -> {
+      // one timer shared by all items, so the deadline bounds the whole stream
+      Mono<Long> expiry = Mono.delay(remaining()).cache();
+      return items.timeout(expiry, item -> expiry, Flux.error(new DeadlineExceededException()));
+    });
+  }
+
+  private static Deadline forCall(Context context, Duration callTimeout) {
+    Deadline callDeadline = after(callTimeout);
+    return context.<Deadline>getOrEmpty(Deadline.class)
+        .map(requestDeadline -> requestDeadline.expiresAt - callDeadline.expiresAt < 0
+            ? requestDeadline
+            : callDeadline)
+        .orElse(callDeadline);
+  }
+
+  public Duration remaining() {
+    return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+  }
+
+  public boolean isExpired() {
+    return expiresAt - System.nanoTime() <= 0;
+  }
+
+  public String headerValue() {
+    return String.valueOf(remaining().toMillis());
+  }
+}
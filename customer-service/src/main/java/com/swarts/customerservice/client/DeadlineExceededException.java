@@ -0,0 +1,8 @@
+package com.swarts.customerservice.client;
+
+public class DeadlineExceededException extends RuntimeException {
+
+  public DeadlineExceededException() {
+    super("Request deadline exceeded");
+  }
+}
@@ -0,0 +1,34 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import java.util.List;
+import reactor.netty.http.HttpProtocol;
+
+/**
+ * Settings shared by all downstream services.
+ */
+public interface DownstreamProperties {
+
+  String getUrl();
+
+  /**
+   * Base URLs of the instances to load balance over; when empty all calls go to {@link #getUrl()}.
+   */
+  List<String> getInstances();
+
+  LoadBalancerProperties getLoadBalancer();
+
+  Duration getTimeout();
+
+  HttpProtocol getProtocol();
+
+  int getMaxConcurrentStreams();
+
+  ConnectionPoolProperties getPool();
+
+  CircuitBreakerProperties getCircuitBreaker();
+
+  RetryProperties getRetry();
+
+  ConcurrencyLimitProperties getConcurrencyLimit();
+}
@@ -0,0 +1,110 @@
+package com.swarts.customerservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends a second, identical request when a read takes longer than the observed latency
+ * percentile, and uses whichever response arrives first; the other request is cancelled. A hedge
+ * request that fails leaves the original request running. Hedge requests are limited to
+ * {@code budgetPercent} of the calls.
+ */
+public class HedgePolicy {
+
+  private static final Duration REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+  private final HedgeProperties properties;
+  private final LatencyTracker latencyTracker;
+  private final RetryBudget budget;
+  private final Counter fired;
+  private final Counter won;
+  private final Counter denied;
+
+  public HedgePolicy(String name, HedgeProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.latencyTracker = new LatencyTracker(properties.getWindow(), properties.getPercentile(),
+        properties.getMinSamples(), REFRESH_INTERVAL);
+    this.budget = new RetryBudget(properties.getBudgetPercent() / 100.0,
+        properties.getBudgetMaxTokens());
+    this.fired = counter(name, "fired", meterRegistry);
+    this.won = counter(name, "won", meterRegistry);
+    this.denied = counter(name, "denied", meterRegistry);
+  }
+
+  public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+    if (!properties.isEnabled()) {
+      return Mono.defer(call);
+    }
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      budget.deposit();
+      Mono<T> primary = Mono.defer(call);
+      Mono<T> hedged = hedgeDelay()
+          .map(delay -> Mono.first(primary, Mono.delay(delay)
+              .then(Mono.defer(() -> canHedge() ? call.get() : Mono.<T>never()))
+              // a failed hedge must not end the read while the original request may still succeed
+              .onErrorResume(e -> Mono.never())
+              .doOnSuccess(value -> won.increment())))
+          .orElse(primary);
+      return hedged.doOnTerminate(() -> recordSince(start));
+    });
+  }
+
+  public <T> Flux<T> hedgeMany(Supplier<Flux<T>> call) {
+    if (!properties.isEnabled()) {
+      return Flux.defer(call);
+    }
+    return Flux.defer(() -> {
+      long start = System.nanoTime();
+      budget.deposit();
+      AtomicBoolean hedgeWon = new AtomicBoolean();
+      AtomicBoolean hedgeEmitted = new AtomicBoolean();
+      Flux<T> primary = Flux.defer(call);
+      Flux<T> hedged = hedgeDelay()
+          .map(delay -> Flux.first(primary, Mono.delay(delay)
+              .thenMany(Flux.defer(() -> canHedge() ? call.get() : Flux.<T>never()))
+              .doOnNext(item -> hedgeEmitted.set(true))
+              // only a hedge that has not emitted yet can leave the read to the original request
+              .onErrorResume(e -> !hedgeEmitted.get(), e -> Flux.never())
+              .doOnEach(signal -> {
+                if (!signal.isOnError() && hedgeWon.compareAndSet(false, true)) {
+                  won.increment();
+                }
+              })))
+          .orElse(primary);
+      return hedged.doOnTerminate(() -> recordSince(start));
+    });
+  }
+
+  private boolean canHedge() {
+    if (!budget.tryWithdraw()) {
+      denied.increment();
+      return false;
+    }
+    fired.increment();
+    return true;
+  }
+
+  private Optional<Duration> hedgeDelay() {
+    return latencyTracker.percentile()
+        .map(delay -> delay.compareTo(properties.getMinDelay()) < 0 ? properties.getMinDelay()
+            : delay);
+  }
+
+  private void recordSince(long start) {
+    latencyTracker.record(Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  private static Counter counter(String name, String result, MeterRegistry meterRegistry) {
+    return Counter.builder("client.hedges")
+        .tag("name", name)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,50 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Hedging settings of the reads from a single downstream service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HedgeProperties {
+
+  @Builder.Default
+  private boolean enabled = false;
+
+  /**
+   * Latency percentile, between 0 and 1, after which the hedge request is sent.
+   */
+  @Builder.Default
+  private double percentile = 0.95;
+
+  @Builder.Default
+  private Duration minDelay = Duration.ofMillis(5);
+
+  /**
+   * Number of most recent call latencies the percentile is computed from.
+   */
+  @Builder.Default
+  private int window = 1000;
+
+  /**
+   * Number of latencies to observe before the first hedge is sent.
+   */
+  @Builder.Default
+  private int minSamples = 100;
+
+  /**
+   * Maximum extra load, in percent of the calls.
+   */
+  @Builder.Default
+  private int budgetPercent = 10;
+
+  @Builder.Default
+  private int budgetMaxTokens = 10;
+}
@@ -0,0 +1,61 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent call latencies in a ring buffer and computes a percentile from them. Once
+ * {@code minSamples} latencies are known the percentile is recomputed at most once per
+ * {@code refreshInterval}.
+ */
+public class LatencyTracker {
+
+  private final AtomicLongArray samples;
+  private final AtomicLong count = new AtomicLong();
+  private final double percentile;
+  private final int minSamples;
+  private final long refreshIntervalNanos;
+
+  private volatile long computedAt;
+  private volatile Duration computed;
+
+  public LatencyTracker(int window, double percentile, int minSamples, Duration refreshInterval) {
+    this.samples = new AtomicLongArray(window);
+    this.percentile = percentile;
+    this.minSamples = Math.min(minSamples, window);
+    this.refreshIntervalNanos = refreshInterval.toNanos();
+  }
+
+  public void record(Duration latency) {
+    long index = count.getAndIncrement();
+    samples.set((int) (index % samples.length()), latency.toNanos());
+  }
+
+  public Optional<Duration> percentile() {
+    long now = System.nanoTime();
+    Duration current = computed;
+    if (current == null || current.isNegative() || now - computedAt >= refreshIntervalNanos) {
+      current = compute();
+      computed = current;
+      computedAt = now;
+    }
+    return current.isNegative() ? Optional.empty() : Optional.of(current);
+  }
+
+  private Duration compute() {
+    int size = (int) Math.min(count.get(), samples.length());
+    if (size < minSamples || size == 0) {
+      return Duration.ofNanos(-1);
+    }
+    long[] sorted = new long[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = samples.get(i);
+    }
+    Arrays.sort(sorted);
+    int rank = (int) Math.ceil(percentile * size) - 1;
+    return Duration.ofNanos(sorted[Math.max(0, Math.min(rank, size - 1))]);
+  }
+}
@@ -0,0 +1,159 @@
+package com.swarts.customerservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spreads the requests of a downstream service over its instances. Each request goes to the one of
+ * two random instances with fewer outstanding requests (power of two choices). An instance is
+ * ejected after {@code consecutiveFailures} server or connection errors in a row and reinstated
+ * after {@code ejectionTime}. When every instance is ejected requests are spread over all of them.
+ * A request counts as outstanding until its response body has been read.
+ */
+@Slf4j
+public class LoadBalancer {
+
+  private final String name;
+  private final LoadBalancerProperties properties;
+  private final List<Instance> instances;
+
+  public LoadBalancer(String name, List<String> urls, LoadBalancerProperties properties,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.properties = properties;
+    this.instances = urls.stream()
+        .map(url -> new Instance(URI.create(url), meterRegistry))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Sends each request to the chosen instance. Requests are built against the first instance; the
+   * path below its base path and the query are kept.
+   */
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> Mono.defer(() -> {
+      Instance instance = choose();
+      instance.outstanding.incrementAndGet();
+      AtomicBoolean done = new AtomicBoolean();
+      Runnable finish = () -> {
+        if (done.compareAndSet(false, true)) {
+          instance.outstanding.decrementAndGet();
+        }
+      };
+      long start = System.nanoTime();
+      return next.exchange(ClientRequest.from(request).url(instance.resolve(request.url())).build())
+          .doOnNext(response -> instance.record(response.statusCode().is5xxServerError(), start))
+          .doOnError(e -> instance.record(true, start))
+          .map(response -> ClientResponses.doFinallyBody(response, finish))
+          .doOnError(e -> finish.run())
+          .doOnCancel(finish);
+    });
+  }
+
+  Instance choose() {
+    long now = System.nanoTime();
+    List<Instance> available = new ArrayList<>(instances.size());
+    for (Instance instance : instances) {
+      if (instance.isAvailable(now)) {
+        available.add(instance);
+      }
+    }
+    if (available.isEmpty()) {
+      available = instances;
+    }
+    if (available.size() == 1) {
+      return available.get(0);
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(available.size());
+    int second = (first + 1 + random.nextInt(available.size() - 1)) % available.size();
+    return lessLoaded(available.get(first), available.get(second));
+  }
+
+  private static Instance lessLoaded(Instance a, Instance b) {
+    return b.outstanding.get() < a.outstanding.get() ? b : a;
+  }
+
+  class Instance {
+
+    private final URI uri;
+    private final String basePath;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final Timer latency;
+    private final Counter ejections;
+    private volatile boolean ejected;
+    private volatile long ejectedUntil;
+
+    private Instance(URI uri, MeterRegistry meterRegistry) {
+      this.uri = uri;
+      String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+      this.basePath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+      String instance = uri.getAuthority();
+      this.latency = Timer.builder("client.instance.latency")
+          .tag("name", name)
+          .tag("instance", instance)
+          .register(meterRegistry);
+      this.ejections = Counter.builder("client.instance.ejections")
+          .tag("name", name)
+          .tag("instance", instance)
+          .register(meterRegistry);
+      Gauge.builder("client.instance.outstanding", outstanding, AtomicInteger::get)
+          .tag("name", name)
+          .tag("instance", instance)
+          .register(meterRegistry);
+    }
+
+    URI getUri() {
+      return uri;
+    }
+
+    private URI resolve(URI requestUri) {
+      String path = requestUri.getRawPath() != null ? requestUri.getRawPath() : "";
+      String requestBasePath = instances.get(0).basePath;
+      if (path.startsWith(requestBasePath)) {
+        path = path.substring(requestBasePath.length());
+      }
+      return UriComponentsBuilder.fromUri(requestUri)
+          .scheme(uri.getScheme())
+          .host(uri.getHost())
+          .port(uri.getPort())
+          .replacePath(basePath + path)
+          .build(true)
+          .toUri();
+    }
+
+    private boolean isAvailable(long now) {
+      return !ejected || now - ejectedUntil >= 0;
+    }
+
+    private void record(boolean failed, long start) {
+      latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+      if (!failed) {
+        consecutiveFailures.set(0);
+      } else if (consecutiveFailures.incrementAndGet() >= properties.getConsecutiveFailures()) {
+        consecutiveFailures.set(0);
+        ejectedUntil = System.nanoTime() + properties.getEjectionTime().toNanos();
+        ejected = true;
+        ejections.increment();
+        log.warn("Ejected instance {} of {} for {}", uri, name, properties.getEjectionTime());
+      }
+    }
+  }
+}
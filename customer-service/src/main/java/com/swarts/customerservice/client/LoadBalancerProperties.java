@@ -0,0 +1,29 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ejection settings of the instances of a single downstream service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadBalancerProperties {
+
+  /**
+   * Number of consecutive server or connection errors after which an instance is ejected.
+   */
+  @Builder.Default
+  private int consecutiveFailures = 5;
+
+  /**
+   * Time an ejected instance receives no requests before it is reinstated.
+   */
+  @Builder.Default
+  private Duration ejectionTime = Duration.ofSeconds(30);
+}
@@ -0,0 +1,135 @@
+package com.swarts.customerservice.client;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+
+/**
+ * Collects single reads for up to {@code window}, or until {@code maxBatchSize} keys are waiting,
+ * and sends them as one multi-get. Every caller gets the value of its own key, or completes empty
+ * when the multi-get did not return it; a failed multi-get fails all of its callers. Cancelled
+ * callers are left out of their batch, and the multi-get runs within the latest deadline of its
+ * callers, each of which is still bounded by its own.
+ */
+@Slf4j
+public class MicroBatcher<T> {
+
+  private final String name;
+  private final FluxSink<Pending<T>> pending;
+  private final Set<Pending<T>> waiting = ConcurrentHashMap.newKeySet();
+  private final Function<List<String>, Flux<T>> multiGet;
+  private final Function<T, String> keyOf;
+  private final DistributionSummary batchSize;
+  private volatile Throwable stopped;
+
+  public MicroBatcher(String name, BatchProperties properties,
+      Function<List<String>, Flux<T>> multiGet, Function<T, String> keyOf,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.multiGet = multiGet;
+    this.keyOf = keyOf;
+    this.batchSize = DistributionSummary.builder("client.batch.size")
+        .tag("name", name)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+
+    EmitterProcessor<Pending<T>> processor = EmitterProcessor.create(false);
+    this.pending = processor.sink();
+    processor
+        .bufferTimeout(properties.getMaxBatchSize(), properties.getWindow())
+        .subscribe(this::send, this::stop,
+            () -> stop(new IllegalStateException("Batching of " + name + " completed")));
+  }
+
+  public Mono<T> get(String key) {
+    return Mono.create(sink -> {
+      Pending<T> p = new Pending<>(key, sink);
+      waiting.add(p);
+      sink.onDispose(() -> waiting.remove(p));
+      sink.onCancel(() -> p.cancelled = true);
+      if (stopped != null) {
+        sink.error(stopped);
+        return;
+      }
+      pending.next(p);
+    });
+  }
+
+  private void send(List<Pending<T>> buffered) {
+    List<Pending<T>> batch = buffered.stream()
+        .filter(p -> !p.cancelled)
+        .collect(Collectors.toList());
+    if (batch.isEmpty()) {
+      return;
+    }
+    batchSize.record(batch.size());
+    List<String> keys = batch.stream()
+        .map(p -> p.key)
+        .distinct()
+        .collect(Collectors.toList());
+    Flux.defer(() -> multiGet.apply(keys))
+        .collectMap(keyOf)
+        .subscriberContext(latestDeadline(batch))
+        .subscribe(values -> complete(batch, values), e -> batch.forEach(p -> p.sink.error(e)));
+  }
+
+  /**
+   * Returns the context of the multi-get: the latest deadline of its callers, or none when one of
+   * them has none.
+   */
+  private static <T> Context latestDeadline(List<Pending<T>> batch) {
+    Deadline latest = null;
+    for (Pending<T> p : batch) {
+      Optional<Deadline> deadline = p.sink.currentContext().getOrEmpty(Deadline.class);
+      if (!deadline.isPresent()) {
+        return Context.empty();
+      }
+      if (latest == null || deadline.get().remaining().compareTo(latest.remaining()) > 0) {
+        latest = deadline.get();
+      }
+    }
+    return latest != null ? Context.of(Deadline.class, latest) : Context.empty();
+  }
+
+  private void stop(Throwable e) {
+    log.error("Batching of {} stopped", name, e);
+    stopped = new IllegalStateException("Batching of " + name + " stopped", e);
+    waiting.forEach(p -> p.sink.error(stopped));
+  }
+
+  private static <T> void complete(List<Pending<T>> batch, Map<String, T> values) {
+    for (Pending<T> p : batch) {
+      T value = values.get(p.key);
+      if (value != null) {
+        p.sink.success(value);
+      } else {
+        p.sink.success();
+      }
+    }
+  }
+
+  private static class Pending<T> {
+
+    private final String key;
+    private final MonoSink<T> sink;
+    private volatile boolean cancelled;
+
+    private Pending(String key, MonoSink<T> sink) {
+      this.key = key;
+      this.sink = sink;
+    }
+  }
+}
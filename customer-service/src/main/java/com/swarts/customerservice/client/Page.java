@@ -0,0 +1,66 @@
+package com.swarts.customerservice.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+
+/**
+ * A page of a list, streamed as it is read, with the cursor of the page after it. A page read
+ * from a response holds that response until its items are read, or until it is
+ * {@linkplain #release() released}.
+ */
+public class Page<T> {
+
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private final Flux<T> items;
+  private final String nextCursor;
+  private final Runnable release;
+
+  public Page(Flux<T> items, String nextCursor) {
+    this(items, nextCursor, () -> { });
+  }
+
+  /**
+   * Creates a page whose {@code release} frees the source of {@code items} when they are never
+   * read.
+   */
+  public Page(Flux<T> items, String nextCursor, Runnable release) {
+    AtomicBoolean taken = new AtomicBoolean();
+    this.items = Flux.defer(() -> {
+      taken.set(true);
+      return items;
+    });
+    this.nextCursor = nextCursor;
+    this.release = () -> {
+      if (taken.compareAndSet(false, true)) {
+        release.run();
+      }
+    };
+  }
+
+  public Flux<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Returns the cursor of the next page, or {@code null} when this is known to be the last page.
+   * A source that cannot tell where its list ends returns a cursor after a full last page, and the
+   * page at that cursor is empty.
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Frees the source of the items unless they have been read. Pages that are dropped without
+   * reading their items have to be released.
+   */
+  public void release() {
+    release.run();
+  }
+
+  public <R> Page<R> map(Function<Flux<T>, Flux<R>> mapper) {
+    return new Page<>(mapper.apply(items), nextCursor, release);
+  }
+}
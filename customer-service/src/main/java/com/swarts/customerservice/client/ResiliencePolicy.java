@@ -0,0 +1,170 @@
+package com.swarts.customerservice.client;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Guards the calls to one downstream service. Every call is bounded by the downstream timeout and
+ * goes through a circuit breaker; while the breaker is open calls are rejected without network
+ * I/O, with a {@link ClientException#isRejected() rejected} {@code 503}. Idempotent calls are
+ * retried on connection errors and server errors, within the request deadline and a
+ * {@link RetryBudget}.
+ */
+@Slf4j
+public class ResiliencePolicy {
+
+  private final String name;
+  private final DownstreamProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final CircuitBreaker circuitBreaker;
+  private final RetryBudget retryBudget;
+  private final Counter retries;
+  private final Counter retriesDenied;
+
+  public ResiliencePolicy(String name, DownstreamProperties properties,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.circuitBreaker = createCircuitBreaker(properties.getCircuitBreaker());
+    this.retryBudget = new RetryBudget(properties.getRetry().getBudgetRatio(),
+        properties.getRetry().getBudgetMaxTokens());
+    this.retries = Counter.builder("client.retries")
+        .tag("name", name)
+        .tag("result", "retried")
+        .register(meterRegistry);
+    this.retriesDenied = Counter.builder("client.retries")
+        .tag("name", name)
+        .tag("result", "denied")
+        .register(meterRegistry);
+  }
+
+  public <T> Mono<T> call(Supplier<Mono<T>> call) {
+    return Mono.defer(call)
+        .timeout(properties.getTimeout(), Mono.error(new DeadlineExceededException()))
+        .transform(CircuitBreakerOperator.of(circuitBreaker))
+        .onErrorMap(CallNotPermittedException.class, e -> ClientException.rejected(e.getMessage()));
+  }
+
+  public <T> Flux<T> callMany(Supplier<Flux<T>> call) {
+    return Flux.defer(() -> {
+      // one timer per attempt, shared by its items, so the timeout bounds the whole stream
+      Mono<Long> expiry = Mono.delay(properties.getTimeout()).cache();
+      return Flux.defer(call)
+          .timeout(expiry, item -> expiry, Flux.error(new DeadlineExceededException()));
+    })
+        .transform(CircuitBreakerOperator.of(circuitBreaker))
+        .onErrorMap(CallNotPermittedException.class, e -> ClientException.rejected(e.getMessage()));
+  }
+
+  public <T> Mono<T> callIdempotent(Deadline deadline, Supplier<Mono<T>> call) {
+    if (!properties.getRetry().isEnabled()) {
+      return call(call);
+    }
+    return Mono.defer(() -> {
+      retryBudget.deposit();
+      return call(call).retryWhen(retry(deadline, e -> true));
+    });
+  }
+
+  public <T> Flux<T> callManyIdempotent(Deadline deadline, Supplier<Flux<T>> call) {
+    if (!properties.getRetry().isEnabled()) {
+      return callMany(call);
+    }
+    return Flux.defer(() -> {
+      retryBudget.deposit();
+      // items already passed downstream cannot be taken back, so only retry empty attempts
+      AtomicBoolean emitted = new AtomicBoolean();
+      return callMany(call)
+          .doOnNext(item -> emitted.set(true))
+          .retryWhen(retry(deadline, e -> !emitted.get()));
+    });
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  private Retry retry(Deadline deadline, Predicate<Throwable> retryable) {
+    RetryProperties retry = properties.getRetry();
+    return Retry.from(signals -> signals.concatMap(signal -> {
+      Throwable failure = signal.failure();
+      if (signal.totalRetries() + 1 >= retry.getMaxAttempts()
+          || !isRetryable(failure) || !retryable.test(failure)) {
+        return Mono.error(failure);
+      }
+      Duration backoff = backoff(signal.totalRetries());
+      if (deadline.remaining().compareTo(backoff) <= 0 || !retryBudget.tryWithdraw()) {
+        retriesDenied.increment();
+        return Mono.error(failure);
+      }
+      retries.increment();
+      return Mono.delay(backoff);
+    }));
+  }
+
+  private Duration backoff(long retryNumber) {
+    RetryProperties retry = properties.getRetry();
+    long exponential = retry.getInitialBackoff().toMillis() << Math.min(retryNumber, 20);
+    long millis = Math.min(retry.getMaxBackoff().toMillis(), exponential);
+    long jitter = (long) (millis * retry.getJitter() * ThreadLocalRandom.current().nextDouble());
+    return Duration.ofMillis(millis - jitter);
+  }
+
+  private static boolean isRetryable(Throwable throwable) {
+    return throwable instanceof IOException
+        || (ClientException.isServerError(throwable) && !ClientException.isRejected(throwable));
+  }
+
+  private CircuitBreaker createCircuitBreaker(CircuitBreakerProperties breakerProperties) {
+    CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+        .failureRateThreshold(breakerProperties.getFailureRateThreshold())
+        .slowCallRateThreshold(breakerProperties.getSlowCallRateThreshold())
+        .slowCallDurationThreshold(breakerProperties.getSlowCallDurationThreshold())
+        .slidingWindowType(breakerProperties.getSlidingWindowType())
+        .slidingWindowSize(breakerProperties.getSlidingWindowSize())
+        .minimumNumberOfCalls(breakerProperties.getMinimumNumberOfCalls())
+        .waitDurationInOpenState(breakerProperties.getWaitDurationInOpenState())
+        .permittedNumberOfCallsInHalfOpenState(
+            breakerProperties.getPermittedNumberOfCallsInHalfOpenState())
+        // 4xx responses and local rejections say nothing about the health of the downstream service
+        .recordException(e -> !ClientException.isClientError(e) && !ClientException.isRejected(e))
+        .build();
+
+    CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+    CircuitBreaker breaker = registry.circuitBreaker(name);
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+    breaker.getEventPublisher().onStateTransition(event -> {
+      log.warn("Circuit breaker of {} changed from {} to {}", name,
+          event.getStateTransition().getFromState(), event.getStateTransition().getToState());
+      Counter.builder("client.circuit.breaker.transitions")
+          .tag("name", name)
+          .tag("from", event.getStateTransition().getFromState().name())
+          .tag("to", event.getStateTransition().getToState().name())
+          .register(meterRegistry)
+          .increment();
+    });
+
+    if (!breakerProperties.isEnabled()) {
+      breaker.transitionToDisabledState();
+    }
+    return breaker;
+  }
+}
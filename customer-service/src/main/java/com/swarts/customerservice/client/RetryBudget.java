@@ -0,0 +1,37 @@
+package com.swarts.customerservice.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting retries to a fraction of the calls. Each call deposits {@code ratio}
+ * tokens and each retry withdraws one, so retries cannot multiply the load on a failing service.
+ */
+public class RetryBudget {
+
+  private static final long SCALE = 1000;
+
+  private final long deposit;
+  private final long capacity;
+  private final AtomicLong balance;
+
+  public RetryBudget(double ratio, int maxTokens) {
+    this.deposit = (long) (ratio * SCALE);
+    this.capacity = maxTokens * SCALE;
+    this.balance = new AtomicLong(capacity);
+  }
+
+  public void deposit() {
+    balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+  }
+
+  public boolean tryWithdraw() {
+    long current;
+    do {
+      current = balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+    } while (!balance.compareAndSet(current, current - SCALE));
+    return true;
+  }
+}
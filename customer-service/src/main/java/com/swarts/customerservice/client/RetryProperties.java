@@ -0,0 +1,48 @@
+package com.swarts.customerservice.client;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Retry settings of the idempotent calls to a single downstream service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetryProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of attempts, including the first one.
+   */
+  @Builder.Default
+  private int maxAttempts = 3;
+
+  @Builder.Default
+  private Duration initialBackoff = Duration.ofMillis(50);
+
+  @Builder.Default
+  private Duration maxBackoff = Duration.ofSeconds(1);
+
+  /**
+   * Fraction of the backoff that is randomized, between 0 and 1.
+   */
+  @Builder.Default
+  private double jitter = 0.5;
+
+  /**
+   * Retries earned by each call. With 0.1 at most one call in ten is retried once the initial
+   * budget of {@code budgetMaxTokens} retries is spent.
+   */
+  @Builder.Default
+  private double budgetRatio = 0.1;
+
+  @Builder.Default
+  private int budgetMaxTokens = 10;
+}
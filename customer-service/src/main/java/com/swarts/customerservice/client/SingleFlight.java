@@ -0,0 +1,114 @@
+package com.swarts.customerservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * Coalesces concurrent calls for the same key into one downstream call. Callers that arrive while
+ * a call is in flight subscribe to the shared result. A caller cancelling only drops its own
+ * subscription; the shared call is cancelled once every caller has gone. At most
+ * {@code maxReplayed} items of a call are kept for callers that arrive later; once a call has
+ * emitted more, later callers make a call of their own.
+ */
+public class SingleFlight<T> {
+
+  private final ConcurrentMap<String, Flux<Tuple2<Long, T>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final int maxReplayed;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter late;
+
+  public SingleFlight(String name, MeterRegistry meterRegistry) {
+    this(name, Integer.MAX_VALUE, meterRegistry);
+  }
+
+  public SingleFlight(String name, int maxReplayed, MeterRegistry meterRegistry) {
+    this.maxReplayed = maxReplayed;
+    this.hits = Counter.builder("client.single.flight")
+        .tag("name", name)
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("client.single.flight")
+        .tag("name", name)
+        .tag("result", "miss")
+        .register(meterRegistry);
+    this.late = Counter.builder("client.single.flight")
+        .tag("name", name)
+        .tag("result", "late")
+        .register(meterRegistry);
+  }
+
+  public Mono<T> mono(String key, Supplier<Mono<T>> call) {
+    return flux(key, () -> call.get().flux()).singleOrEmpty();
+  }
+
+  public Flux<T> flux(String key, Supplier<Flux<T>> call) {
+    return Flux.defer(() -> {
+      Flux<Tuple2<Long, T>> existing = inFlight.get(key);
+      if (existing != null) {
+        return join(existing, call);
+      }
+      Flux<Tuple2<Long, T>> shared = share(key, call.get());
+      existing = inFlight.putIfAbsent(key, shared);
+      if (existing != null) {
+        return join(existing, call);
+      }
+      misses.increment();
+      return shared.map(Tuple2::getT2);
+    });
+  }
+
+  private Flux<Tuple2<Long, T>> share(String key, Flux<T> call) {
+    AtomicReference<Flux<Tuple2<Long, T>>> self = new AtomicReference<>();
+    Flux<Tuple2<Long, T>> shared = call
+        .index()
+        .doOnNext(item -> {
+          // the next item pushes the first out of the replayed ones, so no one may join after it
+          if (item.getT1() + 1 == maxReplayed) {
+            inFlight.remove(key, self.get());
+          }
+        })
+        .doFinally(signal -> inFlight.remove(key, self.get()))
+        .replay(maxReplayed)
+        .refCount();
+    self.set(shared);
+    return shared;
+  }
+
+  /**
+   * Subscribes to a shared call, or makes a call of its own when the first items of the shared
+   * call are no longer replayed.
+   */
+  private Flux<T> join(Flux<Tuple2<Long, T>> shared, Supplier<Flux<T>> call) {
+    hits.increment();
+    return Flux.defer(() -> {
+      AtomicBoolean first = new AtomicBoolean(true);
+      return shared.<T>handle((item, sink) -> {
+        if (first.getAndSet(false) && item.getT1() > 0) {
+          sink.error(new LateCallerException());
+        } else {
+          sink.next(item.getT2());
+        }
+      });
+    }).onErrorResume(LateCallerException.class, e -> {
+      late.increment();
+      return call.get();
+    });
+  }
+
+  private static class LateCallerException extends RuntimeException {
+
+    private LateCallerException() {
+      super("Shared call no longer replays its first items", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.swarts.customerservice.client.address;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Component
+@ConfigurationProperties(prefix = "address-service.cache")
+public class AddressCacheProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of customers whose address list is cached.
+   */
+  @Builder.Default
+  private long maximumSize = 10_000;
+
+  @Builder.Default
+  private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+  /**
+   * Address lists longer than this are not cached.
+   */
+  @Builder.Default
+  private int maximumAddresses = 1_000;
+}
@@ -1,11 +1,24 @@
 package com.swarts.customerservice.client.address;
 
+import com.swarts.customerservice.client.CircuitBreakerProperties;
+import com.swarts.customerservice.client.ConcurrencyLimitProperties;
+import com.swarts.customerservice.client.ConditionalRequestProperties;
+import com.swarts.customerservice.client.ConnectionPoolProperties;
+import com.swarts.customerservice.client.DownstreamProperties;
+import com.swarts.customerservice.client.HedgeProperties;
+import com.swarts.customerservice.client.LoadBalancerProperties;
+import com.swarts.customerservice.client.RetryProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.netty.http.HttpProtocol;
 
 @Data
 @Builder
@@ -13,9 +26,99 @@ import org.springframework.stereotype.Component;
 @AllArgsConstructor
 @Component
 @ConfigurationProperties(prefix = "address-service")
-public class AddressProperties {
+public class AddressProperties implements DownstreamProperties {
 
   private String url;
+
+  /**
+   * Base URLs of the service instances, used instead of {@code url} when set.
+   */
+  @Builder.Default
+  private List<String> instances = new ArrayList<>();
+
+  @Builder.Default
+  private LoadBalancerProperties loadBalancer = new LoadBalancerProperties();
   private String pathAddresses;
   private String pathAddress;
+  private String pathAddressesBatch;
+
+  /**
+   * Maximum number of address creation calls in flight for a single address list.
+   */
+  @Builder.Default
+  private int createConcurrency = 8;
+
+  /**
+   * Sends address lists in chunks of {@code bulkSize} to {@code pathAddressesBatch}.
+   */
+  @Builder.Default
+  private boolean bulkEnabled = false;
+
+  @Builder.Default
+  private int bulkSize = 50;
+
+  /**
+   * The address service pages lists itself: it takes {@code limit} and {@code cursor} query
+   * parameters and returns the cursor of the next page in an {@code X-Next-Cursor} header.
+   */
+  @Builder.Default
+  private boolean paginationEnabled = false;
+
+  /**
+   * Asks for {@code application/x-ndjson} address lists, falling back to a JSON array.
+   */
+  @Builder.Default
+  private boolean ndjsonEnabled = false;
+
+  /**
+   * Maximum size of a single decoded address.
+   */
+  @Builder.Default
+  private DataSize maxInMemorySize = DataSize.ofKilobytes(256);
+
+  /**
+   * Maximum size of a single response body.
+   */
+  @Builder.Default
+  private DataSize maxResponseSize = DataSize.ofMegabytes(16);
+
+  /**
+   * Maximum number of addresses of a list read kept for concurrent reads of the same list. Reads
+   * that join a read of a longer list after that call the address service themselves.
+   */
+  @Builder.Default
+  private int maxSharedAddresses = 500;
+
+  @Builder.Default
+  private Duration timeout = Duration.ofSeconds(2);
+
+  /**
+   * {@code HTTP11}, or {@code H2C} to multiplex requests over HTTP/2 cleartext connections.
+   */
+  @Builder.Default
+  private HttpProtocol protocol = HttpProtocol.HTTP11;
+
+  /**
+   * Maximum number of concurrent requests per connection when using {@code H2C}.
+   */
+  @Builder.Default
+  private int maxConcurrentStreams = 100;
+
+  @Builder.Default
+  private ConnectionPoolProperties pool = new ConnectionPoolProperties();
+
+  @Builder.Default
+  private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+  @Builder.Default
+  private RetryProperties retry = new RetryProperties();
+
+  @Builder.Default
+  private ConcurrencyLimitProperties concurrencyLimit = new ConcurrencyLimitProperties();
+
+  @Builder.Default
+  private HedgeProperties hedge = new HedgeProperties();
+
+  @Builder.Default
+  private ConditionalRequestProperties conditional = new ConditionalRequestProperties();
 }
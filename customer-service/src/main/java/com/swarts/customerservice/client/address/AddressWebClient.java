@@ -1,6 +1,16 @@
 package com.swarts.customerservice.client.address;
 
+import com.swarts.customerservice.client.ClientCodecs;
+import com.swarts.customerservice.client.ClientConnectors;
 import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.ConditionalCache;
+import com.swarts.customerservice.client.Deadline;
+import com.swarts.customerservice.client.HedgePolicy;
+import com.swarts.customerservice.client.Page;
+import com.swarts.customerservice.client.ResiliencePolicy;
+import com.swarts.customerservice.client.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -11,51 +21,124 @@ import reactor.core.publisher.Mono;
 @Component
 public class AddressWebClient {
 
+  private static final String NAME = "address-service";
+
   private final WebClient webClient;
   private final AddressProperties addressProperties;
+  private final SingleFlight<Address> addressesFlight;
+  private final ResiliencePolicy policy;
+  private final HedgePolicy hedgePolicy;
+  private final ConditionalCache<Address> addressesCache;
 
   public AddressWebClient(
       WebClient.Builder webClientBuilder,
-      AddressProperties addressProperties) {
-    this.webClient = webClientBuilder.baseUrl(addressProperties.getUrl()).build();
+      AddressProperties addressProperties,
+      MeterRegistry meterRegistry) {
+    this.webClient = webClientBuilder
+        .apply(ClientConnectors.configure(NAME, addressProperties, meterRegistry))
+        .codecs(ClientCodecs.streamingJson(addressProperties.getMaxInMemorySize()))
+        .filter(ClientCodecs.limitResponseSize(addressProperties.getMaxResponseSize()))
+        .build();
     this.addressProperties = addressProperties;
+    this.addressesFlight = new SingleFlight<>(NAME + ".get-addresses",
+        addressProperties.getMaxSharedAddresses(), meterRegistry);
+    this.policy = new ResiliencePolicy(NAME, addressProperties, meterRegistry);
+    this.hedgePolicy = new HedgePolicy(NAME, addressProperties.getHedge(), meterRegistry);
+    this.addressesCache = new ConditionalCache<>(NAME, addressProperties.getConditional(),
+        meterRegistry);
   }
 
   public Flux<Address> getAddresses(String customerId) {
-    return webClient.get()
-        .uri(addressProperties.getPathAddresses(), customerId)
-        .accept(MediaType.APPLICATION_JSON)
-        .retrieve()
-        .onStatus(HttpStatus::isError, response -> Mono.just(ClientException.from(response)))
-        .bodyToFlux(Address.class);
+    return Deadline.limitMany(addressProperties.getTimeout(),
+        deadline -> addressesFlight.flux(customerId, () -> hedgePolicy.hedgeMany(
+            () -> policy.callManyIdempotent(deadline, () -> addressesCache.flux(customerId,
+                validators -> webClient.get()
+                    .uri(addressProperties.getPathAddresses(), customerId)
+                    .accept(addressListMediaTypes())
+                    .header(Deadline.HEADER, deadline.headerValue())
+                    .headers(validators)
+                    .exchange(),
+                response -> response.bodyToFlux(Address.class))))));
+  }
+
+  /**
+   * Reads a page of at most {@code limit} addresses from an address service that pages its lists.
+   * The addresses are streamed as they arrive, within the same deadline as the page. The page
+   * holds its response until its addresses are read or it is released.
+   */
+  public Mono<Page<Address>> getAddressPage(String customerId, int limit, String cursor) {
+    return Deadline.limit(addressProperties.getTimeout(),
+        deadline -> policy.callIdempotent(deadline, () -> webClient.get()
+            .uri(uriBuilder -> {
+              uriBuilder.path(addressProperties.getPathAddresses()).queryParam("limit", limit);
+              if (cursor != null) {
+                uriBuilder.queryParam("cursor", cursor);
+              }
+              return uriBuilder.build(customerId);
+            })
+            .accept(addressListMediaTypes())
+            .header(Deadline.HEADER, deadline.headerValue())
+            .exchange()
+            .flatMap(response -> response.statusCode().isError()
+                ? ClientException.from(response).<Page<Address>>flatMap(Mono::error)
+                : Mono.just(new Page<>(
+                    deadline.bound(response.bodyToFlux(Address.class)).take(limit),
+                    response.headers().asHttpHeaders().getFirst(Page.NEXT_CURSOR_HEADER),
+                    () -> response.releaseBody().subscribe())))))
+        .doOnDiscard(Page.class, Page::release);
   }
 
   public Mono<Address> getAddress(String customerId, String addressId) {
-    return webClient.get()
-        .uri(addressProperties.getPathAddress(), customerId, addressId)
-        .accept(MediaType.APPLICATION_JSON)
-        .retrieve()
-        .onStatus(HttpStatus::isError, response -> Mono.just(ClientException.from(response)))
-        .bodyToMono(Address.class);
+    return Deadline.limit(addressProperties.getTimeout(), deadline -> hedgePolicy.hedge(
+        () -> policy.callIdempotent(deadline, () -> webClient.get()
+            .uri(addressProperties.getPathAddress(), customerId, addressId)
+            .accept(MediaType.APPLICATION_JSON)
+            .header(Deadline.HEADER, deadline.headerValue())
+            .retrieve()
+            .onStatus(HttpStatus::isError, ClientException::from)
+            .bodyToMono(Address.class))));
   }
 
   public Mono<Address> createAddress(Address address) {
-    return webClient.post()
-        .uri(addressProperties.getPathAddresses(), address.getCustomerId())
-        .accept(MediaType.APPLICATION_JSON)
-        .contentType(MediaType.APPLICATION_JSON)
-        .bodyValue(address)
-        .retrieve()
-        .onStatus(HttpStatus::isError, response -> Mono.just(ClientException.from(response)))
-        .bodyToMono(Address.class);
+    return Deadline.limit(addressProperties.getTimeout(),
+        deadline -> policy.call(() -> webClient.post()
+            .uri(addressProperties.getPathAddresses(), address.getCustomerId())
+            .accept(MediaType.APPLICATION_JSON)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(Deadline.HEADER, deadline.headerValue())
+            .bodyValue(address)
+            .retrieve()
+            .onStatus(HttpStatus::isError, ClientException::from)
+            .bodyToMono(Address.class)));
+  }
+
+  public Flux<Address> createAddresses(List<Address> addressList) {
+    return Deadline.limitMany(addressProperties.getTimeout(),
+        deadline -> policy.callMany(() -> webClient.post()
+            .uri(addressProperties.getPathAddressesBatch(), addressList.get(0).getCustomerId())
+            .accept(MediaType.APPLICATION_JSON)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(Deadline.HEADER, deadline.headerValue())
+            .bodyValue(addressList)
+            .retrieve()
+            .onStatus(HttpStatus::isError, ClientException::from)
+            .bodyToFlux(Address.class)));
   }
 
   public Mono<Void> deleteAddress(String customerId, String addressId) {
-    return webClient.delete()
-        .uri(addressProperties.getPathAddress(), customerId, addressId)
-        .accept(MediaType.APPLICATION_JSON)
-        .retrieve()
-        .onStatus(HttpStatus::isError, response -> Mono.just(ClientException.from(response)))
-        .bodyToMono(Void.class);
+    return Deadline.limit(addressProperties.getTimeout(),
+        deadline -> policy.callIdempotent(deadline, () -> webClient.delete()
+            .uri(addressProperties.getPathAddress(), customerId, addressId)
+            .accept(MediaType.APPLICATION_JSON)
+            .header(Deadline.HEADER, deadline.headerValue())
+            .retrieve()
+            .onStatus(HttpStatus::isError, ClientException::from)
+            .bodyToMono(Void.class)));
+  }
+
+  private MediaType[] addressListMediaTypes() {
+    return addressProperties.isNdjsonEnabled()
+        ? new MediaType[]{ClientCodecs.APPLICATION_NDJSON, MediaType.APPLICATION_JSON}
+        : new MediaType[]{MediaType.APPLICATION_JSON};
   }
 }
@@ -0,0 +1,33 @@
+package com.swarts.customerservice.client.user;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Component
+@ConfigurationProperties(prefix = "user-service.cache")
+public class UserCacheProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  @Builder.Default
+  private long maximumSize = 10_000;
+
+  @Builder.Default
+  private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+  /**
+   * Age after which a read triggers an asynchronous reload, while the current value is served.
+   */
+  @Builder.Default
+  private Duration refreshAfterWrite = Duration.ofMinutes(1);
+}
@@ -1,11 +1,23 @@
 package com.swarts.customerservice.client.user;
 
+import com.swarts.customerservice.client.BatchProperties;
+import com.swarts.customerservice.client.CircuitBreakerProperties;
+import com.swarts.customerservice.client.ConcurrencyLimitProperties;
+import com.swarts.customerservice.client.ConditionalRequestProperties;
+import com.swarts.customerservice.client.ConnectionPoolProperties;
+import com.swarts.customerservice.client.DownstreamProperties;
+import com.swarts.customerservice.client.LoadBalancerProperties;
+import com.swarts.customerservice.client.RetryProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
 
 
 @Data
@@ -14,9 +26,60 @@ import org.springframework.stereotype.Component;
 @AllArgsConstructor
 @Component
 @ConfigurationProperties(prefix = "user-service")
-public class UserProperties {
+public class UserProperties implements DownstreamProperties {
 
   private String url;
+
+  /**
+   * Base URLs of the service instances, used instead of {@code url} when set.
+   */
+  @Builder.Default
+  private List<String> instances = new ArrayList<>();
+
+  @Builder.Default
+  private LoadBalancerProperties loadBalancer = new LoadBalancerProperties();
   private String pathUser;
   private String pathUsers;
+
+  /**
+   * Path of the multi-get, read with the requested ids in an {@code ids} query parameter. Required
+   * when {@code batch} is enabled.
+   */
+  private String pathUsersBatch;
+
+  @Builder.Default
+  private Duration timeout = Duration.ofSeconds(2);
+
+  /**
+   * {@code HTTP11}, or {@code H2C} to multiplex requests over HTTP/2 cleartext connections.
+   */
+  @Builder.Default
+  private HttpProtocol protocol = HttpProtocol.HTTP11;
+
+  /**
+   * Maximum number of concurrent requests per connection when using {@code H2C}.
+   */
+  @Builder.Default
+  private int maxConcurrentStreams = 100;
+
+  @Builder.Default
+  private ConnectionPoolProperties pool = new ConnectionPoolProperties();
+
+  @Builder.Default
+  private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+  @Builder.Default
+  private RetryProperties retry = new RetryProperties();
+
+  @Builder.Default
+  private ConcurrencyLimitProperties concurrencyLimit = new ConcurrencyLimitProperties();
+
+  @Builder.Default
+  private ConditionalRequestProperties conditional = new ConditionalRequestProperties();
+
+  /**
+   * Batches user reads into multi-gets, which are not conditional requests.
+   */
+  @Builder.Default
+  private BatchProperties batch = new BatchProperties();
 }
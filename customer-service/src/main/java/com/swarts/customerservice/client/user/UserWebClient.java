@@ -1,41 +1,107 @@
 package com.swarts.customerservice.client.user;
 
+import com.swarts.customerservice.client.ClientConnectors;
 import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.ConditionalCache;
+import com.swarts.customerservice.client.Deadline;
+import com.swarts.customerservice.client.MicroBatcher;
+import com.swarts.customerservice.client.ResiliencePolicy;
+import com.swarts.customerservice.client.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
 public class UserWebClient {
 
+  private static final String NAME = "user-service";
+
   private final WebClient webClient;
   private final UserProperties userProperties;
+  private final SingleFlight<User> userFlight;
+  private final ResiliencePolicy policy;
+  private final ConditionalCache<User> userCache;
+  private final MicroBatcher<User> userBatcher;
 
   public UserWebClient(
       WebClient.Builder webClientBuilder,
-      UserProperties userProperties) {
-    this.webClient = webClientBuilder.baseUrl(userProperties.getUrl()).build();
+      UserProperties userProperties,
+      MeterRegistry meterRegistry) {
+    this.webClient = webClientBuilder
+        .apply(ClientConnectors.configure(NAME, userProperties, meterRegistry))
+        .build();
     this.userProperties = userProperties;
+    this.userFlight = new SingleFlight<>(NAME + ".get-user", meterRegistry);
+    this.policy = new ResiliencePolicy(NAME, userProperties, meterRegistry);
+    this.userCache = new ConditionalCache<>(NAME, userProperties.getConditional(), meterRegistry);
+    if (userProperties.getBatch().isEnabled()
+        && !StringUtils.hasText(userProperties.getPathUsersBatch())) {
+      throw new IllegalStateException(
+          "user-service.path-users-batch is required when batching is enabled");
+    }
+    this.userBatcher = userProperties.getBatch().isEnabled()
+        ? new MicroBatcher<>(NAME, userProperties.getBatch(), this::getUsers, User::getId,
+            meterRegistry)
+        : null;
   }
 
+  /**
+   * Reads a user. With batching enabled the read is part of a multi-get, which is not conditional:
+   * the {@link ConditionalCache} is only used for single reads.
+   */
   public Mono<User> getUser(String userId) {
-    return webClient.get()
-        .uri(userProperties.getPathUser(), userId)
-        .accept(MediaType.APPLICATION_JSON)
-        .retrieve()
-        .onStatus(HttpStatus::isError, response -> Mono.just(ClientException.from(response)))
-        .bodyToMono(User.class);
+    if (userBatcher != null) {
+      return Deadline.limit(userProperties.getTimeout(), deadline -> userFlight.mono(userId,
+          () -> userBatcher.get(userId)
+              .switchIfEmpty(Mono.defer(() -> Mono.error(notFound(userId))))));
+    }
+    return Deadline.limit(userProperties.getTimeout(), deadline -> userFlight.mono(userId,
+        () -> policy.callIdempotent(deadline, () -> userCache.mono(userId,
+            validators -> webClient.get()
+                .uri(userProperties.getPathUser(), userId)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(Deadline.HEADER, deadline.headerValue())
+                .headers(validators)
+                .exchange(),
+            response -> response.bodyToMono(User.class)))));
+  }
+
+  /**
+   * Reads the users of a batch in one call. Users that do not exist are left out of the result.
+   */
+  private Flux<User> getUsers(List<String> userIds) {
+    return Deadline.limitMany(userProperties.getTimeout(),
+        deadline -> policy.callManyIdempotent(deadline, () -> webClient.get()
+            .uri(uriBuilder -> uriBuilder.path(userProperties.getPathUsersBatch())
+                .queryParam("ids", String.join(",", userIds))
+                .build())
+            .accept(MediaType.APPLICATION_JSON)
+            .header(Deadline.HEADER, deadline.headerValue())
+            .retrieve()
+            .onStatus(HttpStatus::isError, ClientException::from)
+            .bodyToFlux(User.class)));
+  }
+
+  private static ClientException notFound(String userId) {
+    return new ClientException(HttpStatus.NOT_FOUND, "User " + userId + " not found");
   }
 
   public Mono<User> addUser(User user) {
-    return webClient.post()
-        .uri(userProperties.getPathUsers())
-        .accept(MediaType.APPLICATION_JSON)
-        .contentType(MediaType.APPLICATION_JSON)
-        .bodyValue(user)
-        .retrieve()
-        .onStatus(HttpStatus::isError, response -> Mono.just(ClientException.from(response)))
-        .bodyToMono(User.class);  }
+    return Deadline.limit(userProperties.getTimeout(),
+        deadline -> policy.call(() -> webClient.post()
+            .uri(userProperties.getPathUsers())
+            .accept(MediaType.APPLICATION_JSON)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(Deadline.HEADER, deadline.headerValue())
+            .bodyValue(user)
+            .retrieve()
+            .onStatus(HttpStatus::isError, ClientException::from)
+            .bodyToMono(User.class)));
+  }
 }
@@ -0,0 +1,147 @@
+package com.swarts.customerservice.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits the customer requests in flight. Requests over the limit are answered right away with
+ * {@code 503} and {@code Retry-After}. Writes are shed first, then customer and address list
+ * reads, and single address reads last. A bulk import holds a single write slot for as long as
+ * its stream lasts; its own concurrency is bounded by {@code customer-service.import-concurrency}.
+ */
+@Component
+public class AdmissionControlFilter implements WebFilter {
+
+  private final AdmissionProperties admissionProperties;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final List<Route> routes;
+
+  public AdmissionControlFilter(AdmissionProperties admissionProperties,
+      MeterRegistry meterRegistry) {
+    this.admissionProperties = admissionProperties;
+    this.routes = Arrays.asList(
+        new Route(HttpMethod.POST, "/customers", Priority.WRITE, meterRegistry),
+        new Route(HttpMethod.POST, "/customers/_bulk-import", Priority.WRITE, meterRegistry),
+        new Route(HttpMethod.POST, "/customers/{customerId}/address", Priority.WRITE,
+            meterRegistry),
+        new Route(HttpMethod.DELETE, "/customers/{customerId}/address/{addressId}",
+            Priority.WRITE, meterRegistry),
+        new Route(HttpMethod.POST, "/customers/_batch-get", Priority.READ, meterRegistry),
+        new Route(HttpMethod.GET, "/customers/{customerId}", Priority.READ, meterRegistry),
+        new Route(HttpMethod.GET, "/customers/{customerId}/address", Priority.READ,
+            meterRegistry),
+        new Route(HttpMethod.GET, "/customers/{customerId}/address/{addressId}",
+            Priority.CHEAP_READ, meterRegistry));
+    Gauge.builder("http.server.admission.in.flight", inFlight, AtomicInteger::get)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    Route route = admissionProperties.isEnabled() ? route(exchange.getRequest()) : null;
+    if (route == null) {
+      return chain.filter(exchange);
+    }
+    if (!tryAdmit(route)) {
+      route.shed.increment();
+      exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+      exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+          String.valueOf(Math.max(1, admissionProperties.getRetryAfter().getSeconds())));
+      return exchange.getResponse().setComplete();
+    }
+    route.admitted.increment();
+    return chain.filter(exchange)
+        .doFinally(signal -> {
+          route.inFlight.decrementAndGet();
+          inFlight.decrementAndGet();
+        });
+  }
+
+  private boolean tryAdmit(Route route) {
+    int limit = (int) (admissionProperties.getMaxInFlight() * share(route.priority));
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    route.inFlight.incrementAndGet();
+    return true;
+  }
+
+  private double share(Priority priority) {
+    switch (priority) {
+      case WRITE:
+        return admissionProperties.getWriteShare();
+      case READ:
+        return admissionProperties.getReadShare();
+      default:
+        return 1;
+    }
+  }
+
+  private Route route(ServerHttpRequest request) {
+    for (Route route : routes) {
+      if (route.matches(request)) {
+        return route;
+      }
+    }
+    return null;
+  }
+
+  private enum Priority {
+    WRITE, READ, CHEAP_READ
+  }
+
+  private static class Route {
+
+    private static final PathPatternParser PARSER = new PathPatternParser();
+
+    private final HttpMethod method;
+    private final PathPattern pattern;
+    private final Priority priority;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter admitted;
+    private final Counter shed;
+
+    private Route(HttpMethod method, String pattern, Priority priority,
+        MeterRegistry meterRegistry) {
+      this.method = method;
+      this.pattern = PARSER.parse(pattern);
+      this.priority = priority;
+      String name = method + " " + pattern;
+      this.admitted = Counter.builder("http.server.admission")
+          .tag("route", name)
+          .tag("result", "admitted")
+          .register(meterRegistry);
+      this.shed = Counter.builder("http.server.admission")
+          .tag("route", name)
+          .tag("result", "shed")
+          .register(meterRegistry);
+      Gauge.builder("http.server.admission.route.in.flight", inFlight, AtomicInteger::get)
+          .tag("route", name)
+          .register(meterRegistry);
+    }
+
+    private boolean matches(ServerHttpRequest request) {
+      return method == request.getMethod()
+          && pattern.matches(request.getPath().pathWithinApplication());
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.swarts.customerservice.controller;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Component
+@ConfigurationProperties(prefix = "customer-service.admission")
+public class AdmissionProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of customer requests in flight.
+   */
+  @Builder.Default
+  private int maxInFlight = 200;
+
+  /**
+   * Share of {@code maxInFlight} that writes may fill before they are shed.
+   */
+  @Builder.Default
+  private double writeShare = 0.7;
+
+  /**
+   * Share of {@code maxInFlight} that customer and address list reads may fill before they are
+   * shed. Single address reads may use the whole limit.
+   */
+  @Builder.Default
+  private double readShare = 0.9;
+
+  @Builder.Default
+  private Duration retryAfter = Duration.ofSeconds(1);
+}
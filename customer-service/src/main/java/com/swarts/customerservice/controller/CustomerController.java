@@ -1,49 +1,203 @@
 package com.swarts.customerservice.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swarts.customerservice.client.Deadline;
+import com.swarts.customerservice.client.Page;
+import com.swarts.customerservice.exception.ApplicationException;
+import com.swarts.customerservice.exception.ErrorCode;
 import com.swarts.customerservice.model.Customer;
 import com.swarts.customerservice.model.CustomerAddress;
+import com.swarts.customerservice.model.CustomerBatchRequest;
+import com.swarts.customerservice.model.CustomerBatchResult;
+import com.swarts.customerservice.service.CustomerProperties;
 import com.swarts.customerservice.service.CustomerService;
+import com.swarts.customerservice.service.Staleness;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 @RestController
 @Slf4j
 public class CustomerController {
 
+  /**
+   * Names the fields left out of a partial response.
+   */
+  public static final String PARTIAL_RESPONSE_HEADER = "X-Partial-Response";
+
   private final CustomerService customerService;
+  private final CustomerProperties customerProperties;
+  private final ObjectMapper objectMapper;
 
-  public CustomerController(CustomerService customerService) {
+  public CustomerController(CustomerService customerService,
+      CustomerProperties customerProperties,
+      ObjectMapper objectMapper) {
     this.customerService = customerService;
+    this.customerProperties = customerProperties;
+    this.objectMapper = objectMapper;
   }
 
   @PostMapping(value = "/customers",
       produces = MediaType.APPLICATION_JSON_VALUE,
       consumes = MediaType.APPLICATION_JSON_VALUE)
   @ResponseStatus(HttpStatus.CREATED)
-  public Mono<Customer> addCustomer(@RequestBody Customer request) {
-    return customerService.addCustomer(request);
+  public Mono<Customer> addCustomer(ServerHttpRequest request) {
+    Flux<Object> parts = CustomerRequestReader.read(request.getBody(), objectMapper,
+        (int) customerProperties.getMaxInMemorySize().toBytes())
+        .publish()
+        .autoConnect(2);
+    return customerService.addCustomer(parts.ofType(Customer.class).next(),
+            parts.ofType(CustomerAddress.class))
+        .subscriberContext(withDeadline());
   }
 
   @GetMapping(value = "/customers/{customerId}",
       produces = MediaType.APPLICATION_JSON_VALUE)
-  public Mono<Customer> getCustomer(@PathVariable String customerId) {
-    return customerService.getCustomer(customerId);
+  public Mono<ResponseEntity<Object>> getCustomer(@PathVariable String customerId,
+      @RequestParam(required = false) Boolean partial,
+      @RequestParam(required = false) Set<String> fields,
+      ServerHttpResponse response) {
+    CustomerFields customerFields = CustomerFields.of(fields);
+    if (customerFields == null) {
+      return Mono.error(rejected(ErrorCode.CUSTOMER_FIELDS_INVALID));
+    }
+    boolean partialResponse = partial != null
+        ? partial
+        : customerProperties.isPartialResponseEnabled();
+    Mono<Customer> customer;
+    if (!customerFields.includesAddressList()) {
+      customer = customerService.getCustomerWithoutAddresses(customerId);
+    } else if (partialResponse) {
+      customer = customerService.getCustomer(customerId,
+          customerProperties.getPartialAddressTimeout())
+          .doOnNext(c -> {
+            if (c.getAddressList() == null) {
+              response.getHeaders().set(PARTIAL_RESPONSE_HEADER, CustomerFields.ADDRESS_LIST);
+            }
+          });
+    } else {
+      customer = customerService.getCustomer(customerId);
+    }
+    return customer
+        .<Object>map(customerFields::project)
+        .map(this::withETag)
+        .subscriberContext(withStaleness(response))
+        .subscriberContext(withDeadline());
+  }
+
+  @PostMapping(value = "/customers/_batch-get",
+      produces = {NdjsonCodecConfig.APPLICATION_NDJSON_VALUE,
+          MediaType.APPLICATION_STREAM_JSON_VALUE},
+      consumes = MediaType.APPLICATION_JSON_VALUE)
+  public Flux<CustomerBatchResult> getCustomers(@RequestBody CustomerBatchRequest request) {
+    List<String> ids = request.getIds();
+    if (ids == null || ids.isEmpty() || ids.size() > customerProperties.getBatchMaxSize()) {
+      return Flux.error(rejected(ErrorCode.CUSTOMER_BATCH_INVALID));
+    }
+    return customerService.getCustomers(ids, customerProperties.getBatchConcurrency(),
+        customerProperties.getRequestTimeout());
+  }
+
+  /**
+   * Creates the customers of an NDJSON stream, streaming back one result per record as it
+   * completes. The import is not bound by the request timeout; each record has its own.
+   */
+  @PostMapping(value = "/customers/_bulk-import",
+      produces = {NdjsonCodecConfig.APPLICATION_NDJSON_VALUE,
+          MediaType.APPLICATION_STREAM_JSON_VALUE},
+      consumes = {NdjsonCodecConfig.APPLICATION_NDJSON_VALUE,
+          MediaType.APPLICATION_STREAM_JSON_VALUE})
+  public Flux<CustomerBatchResult> importCustomers(ServerHttpRequest request) {
+    return customerService.importCustomers(readRecords(request.getBody()),
+        customerProperties.getImportConcurrency(), customerProperties.getRequestTimeout());
   }
 
+  /**
+   * Splits an NDJSON body into records, each decoded on its own, so that a malformed or oversized
+   * line fails only its own record.
+   */
+  private Flux<Mono<Customer>> readRecords(Flux<DataBuffer> body) {
+    return NdjsonLines.split(body, (int) customerProperties.getImportMaxRecordSize().toBytes())
+        .map(line -> line
+            .flatMap(text -> Mono.fromCallable(
+                () -> objectMapper.readValue(text, Customer.class)))
+            .switchIfEmpty(Mono.defer(() -> Mono.error(
+                new ApplicationException(ErrorCode.CUSTOMER_IMPORT_RECORD_INVALID))))
+            .onErrorMap(JsonProcessingException.class,
+                e -> new ApplicationException(ErrorCode.CUSTOMER_IMPORT_RECORD_INVALID)));
+  }
+
+  /**
+   * Returns the addresses of the customer, or a page of them when {@code limit} or {@code cursor}
+   * is given. A page is streamed as it is read, with the cursor of the next page in an
+   * {@code X-Next-Cursor} header; it is encoded incrementally when read as NDJSON. A whole list is
+   * streamed as well when read as NDJSON; read as JSON it is collected to tag it with an ETag.
+   */
   @GetMapping(value = "/customers/{customerId}/address",
-      produces = MediaType.APPLICATION_JSON_VALUE)
-  public Flux<CustomerAddress> getCustomerAddressList(@PathVariable String customerId) {
-    return customerService.getCustomerAddressList(customerId);
+      produces = {MediaType.APPLICATION_JSON_VALUE, NdjsonCodecConfig.APPLICATION_NDJSON_VALUE})
+  public Mono<ResponseEntity<Flux<CustomerAddress>>> getCustomerAddressList(
+      @PathVariable String customerId,
+      @RequestParam(required = false) Integer limit,
+      @RequestParam(required = false) String cursor,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    Function<Context, Context> staleness = withStaleness(response);
+    Function<Context, Context> deadline = withDeadline();
+    if (limit == null && cursor == null && acceptsNdjson(request)) {
+      // the body is subscribed to when it is written, outside of this context
+      return Mono.just(ResponseEntity.ok().body(customerService.getCustomerAddressList(customerId)
+          .subscriberContext(staleness)
+          .subscriberContext(deadline)));
+    }
+    if (limit == null && cursor == null) {
+      return customerService.getCustomerAddressList(customerId)
+          .collectList()
+          .map(addressList -> ResponseEntity.ok()
+              .eTag(ETags.weak(objectMapper, addressList))
+              .body(Flux.fromIterable(addressList)))
+          .subscriberContext(staleness)
+          .subscriberContext(deadline);
+    }
+    int pageSize = limit != null ? limit : customerProperties.getMaxPageSize();
+    if (pageSize < 1 || pageSize > customerProperties.getMaxPageSize()) {
+      return Mono.error(rejected(ErrorCode.PAGE_INVALID));
+    }
+    return customerService.getCustomerAddressPage(customerId, pageSize, cursor)
+        .map(page -> {
+          ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+          if (page.getNextCursor() != null) {
+            builder.header(Page.NEXT_CURSOR_HEADER, page.getNextCursor());
+          }
+          // the body is subscribed to when it is written, outside of this context
+          return builder.body(page.getItems()
+              .subscriberContext(staleness)
+              .subscriberContext(deadline));
+        })
+        .onErrorMap(CustomerController::isInvalidCursor, e -> rejected(ErrorCode.PAGE_INVALID))
+        .doOnDiscard(Page.class, Page::release)
+        .subscriberContext(staleness)
+        .subscriberContext(deadline);
   }
 
   @GetMapping(value = "/customers/{customerId}/address/{addressId}",
@@ -51,14 +205,16 @@ public class CustomerController {
   public Mono<CustomerAddress> getCustomerAddress(
       @PathVariable String customerId,
       @PathVariable String addressId) {
-    return customerService.getCustomerAddress(customerId, addressId);
+    return customerService.getCustomerAddress(customerId, addressId)
+        .subscriberContext(withDeadline());
   }
 
   @PostMapping(value = "/customers/{customerId}/address",
       produces = MediaType.APPLICATION_JSON_VALUE,
       consumes = MediaType.APPLICATION_JSON_VALUE)
   public Mono<CustomerAddress> addAddress(@RequestBody CustomerAddress request) {
-    return customerService.addAddress(request);
+    return customerService.addAddress(request)
+        .subscriberContext(withDeadline());
   }
 
   @DeleteMapping(value = "/customers/{customerId}/address/{addressId}")
@@ -66,6 +222,54 @@ public class CustomerController {
   public Mono<Void> deleteAddress(
       @PathVariable String customerId,
       @PathVariable String addressId) {
-    return customerService.deleteAddress(customerId, addressId);
+    return customerService.deleteAddress(customerId, addressId)
+        .subscriberContext(withDeadline());
+  }
+
+  /**
+   * Tags the body, so that a {@code GET} with a matching {@code If-None-Match} is answered with
+   * {@code 304 Not Modified} and no body.
+   */
+  private <T> ResponseEntity<T> withETag(T body) {
+    return ResponseEntity.ok().eTag(ETags.weak(objectMapper, body)).body(body);
+  }
+
+  /**
+   * Returns whether NDJSON is preferred over JSON by the {@code Accept} header.
+   */
+  private static boolean acceptsNdjson(ServerHttpRequest request) {
+    List<MediaType> accept = new ArrayList<>(request.getHeaders().getAccept());
+    MediaType.sortBySpecificityAndQuality(accept);
+    return accept.stream()
+        .filter(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)
+            || mediaType.isCompatibleWith(NdjsonCodecConfig.APPLICATION_NDJSON))
+        .findFirst()
+        .map(NdjsonCodecConfig.APPLICATION_NDJSON::equalsTypeAndSubtype)
+        .orElse(false);
+  }
+
+  private static boolean isInvalidCursor(Throwable e) {
+    return e instanceof ApplicationException
+        && ((ApplicationException) e).getErrorCode() == ErrorCode.PAGE_INVALID;
+  }
+
+  /**
+   * Rejects an invalid request with the status of {@code errorCode}.
+   */
+  private static ResponseStatusException rejected(ErrorCode errorCode) {
+    return new ResponseStatusException(errorCode.getStatus(), errorCode.getMessage());
+  }
+
+  /**
+   * Marks the response stale when fallback data of a failed downstream service was served.
+   */
+  private static Function<Context, Context> withStaleness(ServerHttpResponse response) {
+    Staleness staleness = new Staleness();
+    response.beforeCommit(() -> Mono.fromRunnable(() -> staleness.applyTo(response.getHeaders())));
+    return Staleness.attach(staleness);
+  }
+
+  private Function<Context, Context> withDeadline() {
+    return Deadline.attach(customerProperties.getRequestTimeout());
   }
 }
@@ -0,0 +1,70 @@
+package com.swarts.customerservice.controller;
+
+import com.swarts.customerservice.model.Customer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fields of a customer a caller asked for with the {@code fields} parameter. Fields that were not
+ * asked for are left out of the response.
+ */
+final class CustomerFields {
+
+  static final String ID = "id";
+  static final String FIRST_NAME = "firstName";
+  static final String LAST_NAME = "lastName";
+  static final String EMAIL = "email";
+  static final String ADDRESS_LIST = "addressList";
+
+  private static final Set<String> ALL =
+      new HashSet<>(Arrays.asList(ID, FIRST_NAME, LAST_NAME, EMAIL, ADDRESS_LIST));
+
+  private final Set<String> fields;
+
+  private CustomerFields(Set<String> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * Returns the requested fields, all fields when {@code fields} is {@code null}, or {@code null}
+   * when an unknown field is requested.
+   */
+  static CustomerFields of(Set<String> fields) {
+    if (fields == null) {
+      return new CustomerFields(ALL);
+    }
+    return ALL.containsAll(fields) ? new CustomerFields(fields) : null;
+  }
+
+  boolean includesAddressList() {
+    return fields.contains(ADDRESS_LIST);
+  }
+
+  /**
+   * Returns the customer itself when all fields were asked for, otherwise the requested fields by
+   * name. Requested fields are kept when they are {@code null}, as in a full customer.
+   */
+  Object project(Customer customer) {
+    if (fields.size() == ALL.size()) {
+      return customer;
+    }
+    Map<String, Object> projection = new LinkedHashMap<>();
+    putIfRequested(projection, ID, customer.getId());
+    putIfRequested(projection, FIRST_NAME, customer.getFirstName());
+    putIfRequested(projection, LAST_NAME, customer.getLastName());
+    putIfRequested(projection, EMAIL, customer.getEmail());
+    if (customer.getAddressList() != null) {
+      putIfRequested(projection, ADDRESS_LIST, customer.getAddressList());
+    }
+    return projection;
+  }
+
+  private void putIfRequested(Map<String, Object> projection, String field, Object value) {
+    if (fields.contains(field)) {
+      projection.put(field, value);
+    }
+  }
+}
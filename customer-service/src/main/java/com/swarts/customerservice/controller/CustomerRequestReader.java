@@ -0,0 +1,201 @@
+package com.swarts.customerservice.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.swarts.customerservice.model.Customer;
+import com.swarts.customerservice.model.CustomerAddress;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reads a {@link Customer} request body while it arrives. The top-level fields are emitted as a
+ * {@code Customer} without addresses as soon as {@code addressList} starts, when the fields a user
+ * is created from precede it; otherwise they are emitted at the end of the object. Each address is
+ * emitted as a {@link CustomerAddress} once it is complete, so no more than the top-level fields
+ * and a single address are buffered. Each of them may take at most {@code maxInMemorySize} bytes.
+ * Customer fields after an {@code addressList} that followed a complete customer are rejected, as
+ * they could no longer take effect; unknown ones are skipped.
+ */
+final class CustomerRequestReader {
+
+  private static final String ADDRESS_LIST = CustomerFields.ADDRESS_LIST;
+
+  private static final Set<String> USER_FIELDS = new HashSet<>(Arrays.asList(
+      CustomerFields.FIRST_NAME, CustomerFields.LAST_NAME, CustomerFields.EMAIL));
+
+  private static final Set<String> CUSTOMER_FIELDS = new HashSet<>(Arrays.asList(
+      CustomerFields.ID, CustomerFields.FIRST_NAME, CustomerFields.LAST_NAME,
+      CustomerFields.EMAIL));
+
+  private final ObjectMapper objectMapper;
+  private final int maxInMemorySize;
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+  private final Set<String> fieldNames = new HashSet<>();
+  private TokenBuffer fields;
+  private TokenBuffer address;
+  private int depth;
+  private boolean inAddressList;
+  private boolean addressListRead;
+  private boolean customerEmitted;
+  private long bytesFed;
+  private long partStart;
+
+  private CustomerRequestReader(ObjectMapper objectMapper, int maxInMemorySize)
+      throws IOException {
+    this.objectMapper = objectMapper;
+    this.maxInMemorySize = maxInMemorySize;
+    this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+    this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+  }
+
+  /**
+   * Returns the {@code Customer} and its addresses as they are read.
+   */
+  static Flux<Object> read(Flux<DataBuffer> body, ObjectMapper objectMapper,
+      int maxInMemorySize) {
+    return Flux.defer(() -> {
+      CustomerRequestReader reader;
+      try {
+        reader = new CustomerRequestReader(objectMapper, maxInMemorySize);
+      } catch (IOException e) {
+        return Flux.error(e);
+      }
+      return body.concatMapIterable(reader::feed)
+          .concatWith(Flux.defer(() -> Flux.fromIterable(reader.endOfInput())));
+    });
+  }
+
+  private List<Object> feed(DataBuffer buffer) {
+    try {
+      byte[] bytes = new byte[buffer.readableByteCount()];
+      buffer.read(bytes);
+      feeder.feedInput(bytes, 0, bytes.length);
+      bytesFed += bytes.length;
+      List<Object> parts = parse();
+      if (bytesFed - partStart > maxInMemorySize) {
+        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+            "Customer request part exceeds " + maxInMemorySize + " bytes");
+      }
+      return parts;
+    } catch (IOException e) {
+      throw invalid(e);
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  private List<Object> endOfInput() {
+    feeder.endOfInput();
+    List<Object> parts;
+    try {
+      parts = parse();
+    } catch (IOException e) {
+      throw invalid(e);
+    }
+    if (!customerEmitted || depth != 0) {
+      throw new ServerWebInputException("Incomplete customer request");
+    }
+    return parts;
+  }
+
+  private List<Object> parse() throws IOException {
+    List<Object> parts = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+      if (depth == 0) {
+        if (token != JsonToken.START_OBJECT || customerEmitted) {
+          throw new ServerWebInputException("Customer request is not a single JSON object");
+        }
+        fields = new TokenBuffer(parser);
+        fields.writeStartObject();
+        depth++;
+      } else if (inAddressList) {
+        readAddressListToken(token, parts);
+      } else if (depth == 1 && token == JsonToken.END_OBJECT) {
+        depth--;
+        if (!customerEmitted) {
+          parts.add(customer());
+        }
+      } else if (depth == 1 && token == JsonToken.FIELD_NAME
+          && ADDRESS_LIST.equals(parser.getCurrentName())) {
+        if (addressListRead) {
+          throw new ServerWebInputException("Duplicate addressList");
+        }
+        addressListRead = true;
+        inAddressList = true;
+        if (fieldNames.containsAll(USER_FIELDS)) {
+          parts.add(customer());
+        }
+      } else if (depth == 1 && token == JsonToken.FIELD_NAME && customerEmitted
+          && CUSTOMER_FIELDS.contains(parser.getCurrentName())) {
+        throw new ServerWebInputException(
+            "Customer field " + parser.getCurrentName() + " after a complete customer");
+      } else {
+        if (depth == 1 && token == JsonToken.FIELD_NAME) {
+          fieldNames.add(parser.getCurrentName());
+        }
+        depth += token.isStructStart() ? 1 : token.isStructEnd() ? -1 : 0;
+        if (!customerEmitted) {
+          fields.copyCurrentEvent(parser);
+        }
+      }
+    }
+    return parts;
+  }
+
+  /**
+   * Reads the value of {@code addressList}: {@code null}, or an array of addresses.
+   */
+  private void readAddressListToken(JsonToken token, List<Object> parts) throws IOException {
+    if (depth == 1) {
+      if (token == JsonToken.START_ARRAY) {
+        depth++;
+      } else if (token == JsonToken.VALUE_NULL) {
+        inAddressList = false;
+      } else {
+        throw new ServerWebInputException("addressList is not an array");
+      }
+    } else if (depth == 2 && token == JsonToken.END_ARRAY) {
+      depth--;
+      inAddressList = false;
+    } else {
+      if (depth == 2) {
+        address = new TokenBuffer(parser);
+      }
+      depth += token.isStructStart() ? 1 : token.isStructEnd() ? -1 : 0;
+      address.copyCurrentEvent(parser);
+      if (depth == 2) {
+        parts.add(objectMapper.readValue(address.asParser(), CustomerAddress.class));
+        address = null;
+        partStart = parser.getCurrentLocation().getByteOffset();
+      }
+    }
+  }
+
+  private Customer customer() throws IOException {
+    fields.writeEndObject();
+    customerEmitted = true;
+    Customer customer = objectMapper.readValue(fields.asParser(), Customer.class);
+    fields = null;
+    partStart = parser.getCurrentLocation().getByteOffset();
+    return customer;
+  }
+
+  private static ServerWebInputException invalid(IOException e) {
+    return new ServerWebInputException("Invalid customer request: " + e.getMessage());
+  }
+}
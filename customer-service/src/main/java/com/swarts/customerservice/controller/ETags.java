@@ -0,0 +1,54 @@
+package com.swarts.customerservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Weak entity tags of response bodies: a SHA-256 digest of the body as serialized by the
+ * application's {@link ObjectMapper}. The body is written straight into the digest, so it is not
+ * buffered to tag it.
+ */
+final class ETags {
+
+  private ETags() {
+  }
+
+  static String weak(ObjectMapper objectMapper, Object body) {
+    DigestOutputStream out = new DigestOutputStream();
+    try {
+      objectMapper.writeValue(out, body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(out.digest.digest())
+        + "\"";
+  }
+
+  private static final class DigestOutputStream extends OutputStream {
+
+    private final MessageDigest digest;
+
+    private DigestOutputStream() {
+      try {
+        this.digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void write(int b) {
+      digest.update((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      digest.update(b, off, len);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.swarts.customerservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Reads and writes {@code application/x-ndjson}, one JSON document per line, flushing each
+ * written element as soon as it is encoded.
+ */
+@Configuration
+public class NdjsonCodecConfig implements WebFluxConfigurer {
+
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  public static final MediaType APPLICATION_NDJSON =
+      MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+  private final ObjectMapper objectMapper;
+
+  public NdjsonCodecConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+    configure(configurer, objectMapper);
+  }
+
+  static void configure(ServerCodecConfigurer configurer, ObjectMapper objectMapper) {
+    MediaType[] mediaTypes = {
+        MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), APPLICATION_NDJSON};
+    Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper, mediaTypes);
+    encoder.setStreamingMediaTypes(
+        Arrays.asList(APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON));
+    configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+    configurer.defaultCodecs()
+        .jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper, mediaTypes));
+  }
+}
@@ -0,0 +1,89 @@
+package com.swarts.customerservice.controller;
+
+import com.swarts.customerservice.exception.ApplicationException;
+import com.swarts.customerservice.exception.ErrorCode;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Splits an NDJSON body into its lines while it arrives. A line longer than
+ * {@code maxLineSize} bytes is skipped up to the next newline and emitted as a
+ * {@code CUSTOMER_IMPORT_RECORD_TOO_LARGE} error, so that the lines after it are still read.
+ * Blank lines are left out.
+ */
+final class NdjsonLines {
+
+  private final int maxLineSize;
+  private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+  private boolean skipping;
+
+  private NdjsonLines(int maxLineSize) {
+    this.maxLineSize = maxLineSize;
+  }
+
+  static Flux<Mono<String>> split(Flux<DataBuffer> body, int maxLineSize) {
+    return Flux.defer(() -> {
+      NdjsonLines lines = new NdjsonLines(maxLineSize);
+      return body.concatMapIterable(lines::feed)
+          .concatWith(Flux.defer(() -> Flux.fromIterable(lines.endOfInput())));
+    });
+  }
+
+  private List<Mono<String>> feed(DataBuffer buffer) {
+    try {
+      byte[] bytes = new byte[buffer.readableByteCount()];
+      buffer.read(bytes);
+      List<Mono<String>> lines = new ArrayList<>();
+      int start = 0;
+      for (int i = 0; i < bytes.length; i++) {
+        if (bytes[i] == '\n') {
+          append(bytes, start, i);
+          endLine(lines);
+          start = i + 1;
+        }
+      }
+      append(bytes, start, bytes.length);
+      return lines;
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  private List<Mono<String>> endOfInput() {
+    List<Mono<String>> lines = new ArrayList<>();
+    endLine(lines);
+    return lines;
+  }
+
+  private void append(byte[] bytes, int from, int to) {
+    if (skipping) {
+      return;
+    }
+    if (line.size() + to - from > maxLineSize) {
+      skipping = true;
+      line.reset();
+      return;
+    }
+    line.write(bytes, from, to - from);
+  }
+
+  private void endLine(List<Mono<String>> lines) {
+    if (skipping) {
+      lines.add(Mono.error(new ApplicationException(ErrorCode.CUSTOMER_IMPORT_RECORD_TOO_LARGE)));
+      skipping = false;
+    } else {
+      String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+      if (StringUtils.hasText(text)) {
+        lines.add(Mono.just(text));
+      }
+    }
+    line.reset();
+  }
+}
@@ -8,9 +8,17 @@ public enum ErrorCode {
   USER_SERVICE_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "User service error"),
   USER_INVALID_REQUEST(HttpStatus.BAD_REQUEST, "User request invalid"),
   CUSTOMER_NOT_FOUND(HttpStatus.NOT_FOUND, "Customer not found"),
+  CUSTOMER_FIELDS_INVALID(HttpStatus.BAD_REQUEST, "Customer fields invalid"),
+  CUSTOMER_BATCH_INVALID(HttpStatus.BAD_REQUEST, "Customer batch invalid"),
+  CUSTOMER_IMPORT_RECORD_INVALID(HttpStatus.BAD_REQUEST, "Customer import record invalid"),
+  CUSTOMER_IMPORT_RECORD_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE,
+      "Customer import record too large"),
   ADDRESS_SERVICE_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Address service error"),
   ADDRESS_INVALID_REQUEST(HttpStatus.BAD_REQUEST, "Address request invalid"),
-  ADDRESS_NOT_FOUND(HttpStatus.NOT_FOUND, "Address not found");
+  ADDRESS_NOT_FOUND(HttpStatus.NOT_FOUND, "Address not found"),
+  PAGE_INVALID(HttpStatus.BAD_REQUEST, "Page request invalid"),
+  DEADLINE_EXCEEDED(HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded"),
+  INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error");
 
   private final HttpStatus status;
   private final String message;
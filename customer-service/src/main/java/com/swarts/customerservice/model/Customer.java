@@ -1,5 +1,7 @@
 package com.swarts.customerservice.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,5 +22,6 @@ public class Customer {
 
   private String email;
 
+  @JsonInclude(Include.NON_NULL)
   private List<CustomerAddress> addressList;
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.swarts.customerservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.swarts.customerservice.exception.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome for a single customer of a batch: either the customer, or the error it failed with.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class CustomerBatchResult {
+
+  /**
+   * Position of the record in the input, for results that may arrive out of order.
+   */
+  private Long index;
+
+  private String id;
+
+  private Customer customer;
+
+  private ErrorCode error;
+
+  private Integer status;
+
+  private String message;
+
+  public static CustomerBatchResult succeeded(String id, Customer customer) {
+    return CustomerBatchResult.builder()
+        .id(id)
+        .customer(customer)
+        .build();
+  }
+
+  public static CustomerBatchResult failed(String id, ErrorCode error) {
+    return CustomerBatchResult.builder()
+        .id(id)
+        .error(error)
+        .status(error.getStatus().value())
+        .message(error.getMessage())
+        .build();
+  }
+}
@@ -1,11 +1,27 @@
 package com.swarts.customerservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.DeadlineExceededException;
+import com.swarts.customerservice.client.Page;
 import com.swarts.customerservice.client.address.Address;
+import com.swarts.customerservice.client.address.AddressCacheProperties;
+import com.swarts.customerservice.client.address.AddressProperties;
 import com.swarts.customerservice.client.address.AddressWebClient;
 import com.swarts.customerservice.exception.ApplicationException;
 import com.swarts.customerservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -13,51 +29,330 @@ import reactor.core.publisher.Mono;
 @Service
 public class AddressService {
 
+  private static final String CACHE_NAME = "addresses";
+  private static final String FALLBACK_NAME = "address";
+
+  /**
+   * Number of write counters. Each customer maps to one of them, so a write only holds back the
+   * caching of reads of its own customer, and of the few customers sharing its counter.
+   */
+  private static final int WRITE_STRIPES = 1024;
+
   private final AddressWebClient addressWebClient;
+  private final AddressProperties addressProperties;
+  private final Cache<String, List<Address>> addressCache;
+  private final int maximumCachedAddresses;
+  private final AtomicLongArray writes = new AtomicLongArray(WRITE_STRIPES);
+  private final FallbackStore<List<Address>> fallbackStore;
 
-  public AddressService(AddressWebClient addressWebClient) {
+  public AddressService(AddressWebClient addressWebClient,
+      AddressProperties addressProperties,
+      AddressCacheProperties addressCacheProperties,
+      FallbackProperties fallbackProperties,
+      MeterRegistry meterRegistry) {
     this.addressWebClient = addressWebClient;
+    this.addressProperties = addressProperties;
+    this.addressCache = addressCacheProperties.isEnabled()
+        ? createCache(addressCacheProperties, meterRegistry)
+        : null;
+    this.maximumCachedAddresses = addressCacheProperties.getMaximumAddresses();
+    this.fallbackStore = new FallbackStore<>(FALLBACK_NAME, fallbackProperties,
+        customerId -> addressWebClient.getAddresses(customerId).collectList()
+            .filter(addressList -> addressList.size() <= maximumCachedAddresses)
+            .map(Collections::unmodifiableList),
+        meterRegistry);
   }
 
   public Mono<Address> addAddress(Address address) {
     return addressWebClient.createAddress(address)
+        .doOnNext(this::cacheAddress)
+        .doOnError(e -> evictAddressList(address.getCustomerId()))
         .onErrorMap(ClientException::isClientError,
             e -> new ApplicationException(ErrorCode.ADDRESS_INVALID_REQUEST))
         .onErrorMap(ClientException::isServerError,
-            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR));
+            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR))
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED));
   }
 
   public Flux<Address> addAddressList(List<Address> addressList) {
-    return Flux.fromIterable(addressList)
-        .flatMap(addressWebClient::createAddress)
+    return createAddressList(addressList)
         .onErrorMap(ClientException::isClientError,
             e -> new ApplicationException(ErrorCode.ADDRESS_INVALID_REQUEST))
         .onErrorMap(ClientException::isServerError,
-            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR));
+            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR))
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED));
   }
 
-  public Flux<Address> getAddressList(String customerId) {
-    return addressWebClient.getAddresses(customerId)
+  /**
+   * Like {@link #addAddressList}, creating each address as soon as it is available.
+   */
+  public Flux<Address> addAddresses(Flux<Address> addresses) {
+    return createAddresses(addresses)
         .onErrorMap(ClientException::isClientError,
-            e -> new ApplicationException(ErrorCode.ADDRESS_NOT_FOUND))
+            e -> new ApplicationException(ErrorCode.ADDRESS_INVALID_REQUEST))
         .onErrorMap(ClientException::isServerError,
-            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR));
+            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR))
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED));
+  }
+
+  public Flux<Address> getAddressList(String customerId) {
+    return getAddressListWithFallback(customerId)
+        .onErrorMap(AddressService::toAddressListError);
+  }
+
+  /**
+   * Returns a page of at most {@code limit} addresses, starting at {@code cursor}. When the address
+   * service does not page lists itself, the page is a window of the streamed list, its cursor is
+   * the offset of its first address, and a page that is not full is the last one. The window does
+   * not know where the list ends, so its next cursor is always set, and a full last page is
+   * followed by an empty one.
+   */
+  public Mono<Page<Address>> getAddressPage(String customerId, int limit, String cursor) {
+    if (addressProperties.isPaginationEnabled()) {
+      return addressWebClient.getAddressPage(customerId, limit, cursor)
+          .map(page -> page.map(items -> items.onErrorMap(AddressService::toAddressListError)))
+          .onErrorMap(AddressService::toAddressListError);
+    }
+    return Mono.fromCallable(() -> offset(cursor))
+        .map(offset -> new Page<>(getAddressList(customerId).skip(offset).take(limit),
+            String.valueOf(offset + limit)));
+  }
+
+  private static long offset(String cursor) {
+    if (cursor == null) {
+      return 0;
+    }
+    try {
+      long offset = Long.parseLong(cursor);
+      if (offset >= 0) {
+        return offset;
+      }
+    } catch (NumberFormatException e) {
+      // invalid below
+    }
+    throw new ApplicationException(ErrorCode.PAGE_INVALID);
+  }
+
+  private static Throwable toAddressListError(Throwable e) {
+    if (ClientException.isClientError(e)) {
+      return new ApplicationException(ErrorCode.ADDRESS_NOT_FOUND);
+    }
+    if (ClientException.isServerError(e) || e instanceof DataBufferLimitException) {
+      return new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR);
+    }
+    if (e instanceof DeadlineExceededException) {
+      return new ApplicationException(ErrorCode.DEADLINE_EXCEEDED);
+    }
+    return e;
   }
 
   public Mono<Address> getAddress(String customerId, String addressId) {
-    return addressWebClient.getAddress(customerId, addressId)
+    return getCachedAddress(customerId, addressId)
         .onErrorMap(ClientException::isClientError,
             e -> new ApplicationException(ErrorCode.ADDRESS_NOT_FOUND))
-        .onErrorMap(ClientException::isServerError,
-            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR));
+        .onErrorMap(e -> ClientException.isServerError(e) || e instanceof DataBufferLimitException,
+            e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR))
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED));
 
   }
 
   public Mono<Void> deleteAddress(String customerId, String addressId) {
     return addressWebClient.deleteAddress(customerId, addressId)
+        .doOnError(e -> evictAddressList(customerId))
         .onErrorMap(ClientException::isServerError,
             e -> new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR))
-        .onErrorResume(ClientException::isClientError, e -> Mono.empty());
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED))
+        .onErrorResume(ClientException::isClientError, e -> Mono.empty())
+        .doOnSuccess(v -> uncacheAddress(customerId, addressId));
+  }
+
+  private Flux<Address> createAddressList(List<Address> addressList) {
+    if (addressProperties.isBulkEnabled()) {
+      return createBatches(
+          Flux.fromIterable(partition(addressList, addressProperties.getBulkSize())));
+    }
+    return createAddresses(Flux.fromIterable(addressList));
+  }
+
+  private Flux<Address> createAddresses(Flux<Address> addresses) {
+    if (addressProperties.isBulkEnabled()) {
+      int bulkSize = addressProperties.getBulkSize();
+      return createBatches(addresses.buffer(bulkSize)
+          .flatMapIterable(batch -> partition(batch, bulkSize)));
+    }
+    return addresses
+        .flatMapSequential(address -> addressWebClient.createAddress(address)
+                .doOnNext(this::cacheAddress)
+                .doOnError(e -> evictAddressList(address.getCustomerId())),
+            addressProperties.getCreateConcurrency());
+  }
+
+  private Flux<Address> createBatches(Flux<List<Address>> batches) {
+    return batches
+        .flatMapSequential(batch -> addressWebClient.createAddresses(batch)
+                .doOnNext(this::cacheAddress)
+                .doOnError(e -> evictAddressList(batch.get(0).getCustomerId())),
+            addressProperties.getCreateConcurrency());
+  }
+
+  /**
+   * Splits the list into batches of at most {@code size} addresses of the same customer.
+   */
+  private static List<List<Address>> partition(List<Address> addressList, int size) {
+    List<List<Address>> batches = new ArrayList<>();
+    List<Address> batch = new ArrayList<>();
+    for (Address address : addressList) {
+      boolean otherCustomer = !batch.isEmpty()
+          && !Objects.equals(batch.get(0).getCustomerId(), address.getCustomerId());
+      if (batch.size() == size || otherCustomer) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+      }
+      batch.add(address);
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  /**
+   * Serves the last good address list when the address service fails before sending an address.
+   */
+  private Flux<Address> getAddressListWithFallback(String customerId) {
+    return Flux.defer(() -> {
+      long writesBeforeRead = writes(customerId);
+      List<Address> addressList = new ArrayList<>();
+      return getCachedAddressList(customerId)
+          .doOnNext(address -> {
+            if (addressList.size() <= maximumCachedAddresses) {
+              addressList.add(address);
+            }
+          })
+          .doOnComplete(() -> {
+            if (addressList.size() <= maximumCachedAddresses
+                && writes(customerId) == writesBeforeRead) {
+              fallbackStore.put(customerId, Collections.unmodifiableList(addressList));
+            }
+          })
+          .onErrorResume(e -> addressList.isEmpty() && isUnavailable(e),
+              e -> fallbackStore.get(customerId, e).flatMapIterable(Function.identity()));
+    });
+  }
+
+  private static boolean isUnavailable(Throwable e) {
+    return ClientException.isServerError(e) || e instanceof DeadlineExceededException;
+  }
+
+  private Flux<Address> getCachedAddressList(String customerId) {
+    if (addressCache == null) {
+      return addressWebClient.getAddresses(customerId);
+    }
+    return Flux.defer(() -> {
+      List<Address> cachedAddressList = addressCache.getIfPresent(customerId);
+      if (cachedAddressList != null) {
+        return Flux.fromIterable(cachedAddressList);
+      }
+      // a list read before a concurrent write completed may be stale, so it is not cached
+      long writesBeforeRead = writes(customerId);
+      List<Address> addressList = new ArrayList<>();
+      return addressWebClient.getAddresses(customerId)
+          .doOnNext(address -> {
+            if (addressList.size() <= maximumCachedAddresses) {
+              addressList.add(address);
+            }
+          })
+          .doOnComplete(() -> {
+            if (addressList.size() <= maximumCachedAddresses
+                && writes(customerId) == writesBeforeRead) {
+              addressCache.put(customerId, Collections.unmodifiableList(addressList));
+            }
+          });
+    });
+  }
+
+  private Mono<Address> getCachedAddress(String customerId, String addressId) {
+    if (addressCache == null) {
+      return addressWebClient.getAddress(customerId, addressId);
+    }
+    return Mono.defer(() -> {
+      List<Address> cachedAddressList = addressCache.getIfPresent(customerId);
+      if (cachedAddressList == null) {
+        return addressWebClient.getAddress(customerId, addressId);
+      }
+      return Flux.fromIterable(cachedAddressList)
+          .filter(address -> Objects.equals(address.getId(), addressId))
+          .next()
+          .switchIfEmpty(addressWebClient.getAddress(customerId, addressId));
+    });
+  }
+
+  private void cacheAddress(Address address) {
+    countWrite(address.getCustomerId());
+    fallbackStore.invalidate(address.getCustomerId());
+    if (addressCache == null || address.getCustomerId() == null) {
+      return;
+    }
+    addressCache.asMap().computeIfPresent(address.getCustomerId(), (customerId, addressList) -> {
+      List<Address> updatedList = new ArrayList<>(addressList);
+      updatedList.add(address);
+      return updatedList.size() <= maximumCachedAddresses
+          ? Collections.unmodifiableList(updatedList)
+          : null;
+    });
+  }
+
+  private void uncacheAddress(String customerId, String addressId) {
+    countWrite(customerId);
+    fallbackStore.invalidate(customerId);
+    if (addressCache == null) {
+      return;
+    }
+    addressCache.asMap().computeIfPresent(customerId, (key, addressList) ->
+        Collections.unmodifiableList(addressList.stream()
+            .filter(address -> !Objects.equals(address.getId(), addressId))
+            .collect(Collectors.toList())));
+  }
+
+  private void evictAddressList(String customerId) {
+    countWrite(customerId);
+    fallbackStore.invalidate(customerId);
+    if (addressCache == null || customerId == null) {
+      return;
+    }
+    addressCache.invalidate(customerId);
+  }
+
+  private long writes(String customerId) {
+    return writes.get(writeStripe(customerId));
+  }
+
+  private void countWrite(String customerId) {
+    writes.incrementAndGet(writeStripe(customerId));
+  }
+
+  private static int writeStripe(String customerId) {
+    return (Objects.hashCode(customerId) & Integer.MAX_VALUE) % WRITE_STRIPES;
+  }
+
+  private Cache<String, List<Address>> createCache(AddressCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    Cache<String, List<Address>> cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getExpireAfterWrite())
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+        .tag("cache", CACHE_NAME)
+        .register(meterRegistry);
+    return cache;
   }
 
 }
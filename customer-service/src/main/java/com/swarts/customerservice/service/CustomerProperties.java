@@ -0,0 +1,71 @@
+package com.swarts.customerservice.service;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Component
+@ConfigurationProperties(prefix = "customer-service")
+public class CustomerProperties {
+
+  @Builder.Default
+  private Duration requestTimeout = Duration.ofSeconds(5);
+
+  /**
+   * Returns customers without addresses when these are late or failing, unless a request asks
+   * otherwise with the {@code partial} parameter.
+   */
+  @Builder.Default
+  private boolean partialResponseEnabled = false;
+
+  /**
+   * Time to wait for the addresses of a partial response.
+   */
+  @Builder.Default
+  private Duration partialAddressTimeout = Duration.ofMillis(300);
+
+  /**
+   * Maximum size of the top-level fields, or of a single address, of a customer creation.
+   */
+  @Builder.Default
+  private DataSize maxInMemorySize = DataSize.ofKilobytes(256);
+
+  /**
+   * Maximum number of customers read at once for a batch read.
+   */
+  @Builder.Default
+  private int batchConcurrency = 16;
+
+  /**
+   * Maximum number of ids of a batch read.
+   */
+  @Builder.Default
+  private int batchMaxSize = 1000;
+
+  /**
+   * Maximum number of customers created at once for a bulk import.
+   */
+  @Builder.Default
+  private int importConcurrency = 8;
+
+  /**
+   * Maximum size of a single line of a bulk import.
+   */
+  @Builder.Default
+  private DataSize importMaxRecordSize = DataSize.ofKilobytes(256);
+
+  /**
+   * Maximum, and default, number of addresses of a page.
+   */
+  @Builder.Default
+  private int maxPageSize = 500;
+}
@@ -1,25 +1,42 @@
 package com.swarts.customerservice.service;
 
+import com.swarts.customerservice.client.Deadline;
+import com.swarts.customerservice.client.Page;
 import com.swarts.customerservice.client.address.Address;
 import com.swarts.customerservice.client.address.Street;
 import com.swarts.customerservice.client.user.User;
+import com.swarts.customerservice.exception.ApplicationException;
+import com.swarts.customerservice.exception.ErrorCode;
 import com.swarts.customerservice.model.Customer;
 import com.swarts.customerservice.model.CustomerAddress;
+import com.swarts.customerservice.model.CustomerBatchResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+@Slf4j
 @Service
 public class CustomerService {
 
   private final UserService userService;
   private final AddressService addressService;
+  private final Counter avoidedAddressCalls;
 
-  public CustomerService(UserService userService, AddressService addressService) {
+  public CustomerService(UserService userService, AddressService addressService,
+      MeterRegistry meterRegistry) {
     this.userService = userService;
     this.addressService = addressService;
+    this.avoidedAddressCalls = Counter.builder("customer.downstream.calls.avoided")
+        .tag("service", "address-service")
+        .register(meterRegistry);
   }
 
   public Mono<Customer> addCustomer(Customer customerRequest) {
@@ -35,6 +52,24 @@ public class CustomerService {
         });
   }
 
+  /**
+   * Like {@link #addCustomer(Customer)}, for a request that is still being read. The user is
+   * created once {@code customerRequest} is available, and each address as soon as it is read.
+   */
+  public Mono<Customer> addCustomer(Mono<Customer> customerRequest,
+      Flux<CustomerAddress> addressList) {
+    return customerRequest
+        .flatMap(request -> userService.addUser(toUser(request)))
+        .zipWith(addressService
+            .addAddresses(addressList.map(this::toAddress))
+            .collectList())
+        .map(tuple -> {
+          Customer customer = toCustomer(tuple.getT1());
+          customer.setAddressList(toCustomerAddressList(tuple.getT2()));
+          return customer;
+        });
+  }
+
   public Mono<Customer> getCustomer(String customerId) {
     return userService.getUser(customerId)
         .zipWith(getCustomerAddressList(customerId).collectList())
@@ -45,6 +80,84 @@ public class CustomerService {
         });
   }
 
+  /**
+   * Returns the customer without its address list, for callers that do not need it.
+   */
+  public Mono<Customer> getCustomerWithoutAddresses(String customerId) {
+    return userService.getUser(customerId)
+        .map(this::toCustomer)
+        .doOnSubscribe(s -> avoidedAddressCalls.increment());
+  }
+
+  /**
+   * Returns the customer without an address list when the addresses are not available within
+   * {@code addressTimeout}, or the address service fails.
+   */
+  public Mono<Customer> getCustomer(String customerId, Duration addressTimeout) {
+    Mono<Optional<List<CustomerAddress>>> addressList = getCustomerAddressList(customerId)
+        .collectList()
+        .map(Optional::of)
+        .timeout(addressTimeout, Mono.just(Optional.empty()))
+        .onErrorResume(CustomerService::isUnavailable, e -> Mono.just(Optional.empty()));
+    return userService.getUser(customerId)
+        .zipWith(addressList)
+        .map(tuple -> {
+          Customer customer = toCustomer(tuple.getT1());
+          customer.setAddressList(tuple.getT2().orElse(null));
+          return customer;
+        });
+  }
+
+  /**
+   * Reads the customers with at most {@code concurrency} reads at once, each within its own
+   * {@code timeout}. Results are emitted as they complete, and a failed read is emitted as a
+   * result carrying its error.
+   */
+  public Flux<CustomerBatchResult> getCustomers(List<String> customerIds, int concurrency,
+      Duration timeout) {
+    return Flux.fromIterable(customerIds)
+        .distinct()
+        .flatMap(customerId -> getCustomer(customerId)
+                .map(customer -> CustomerBatchResult.succeeded(customerId, customer))
+                .onErrorResume(e -> Mono.just(
+                    CustomerBatchResult.failed(customerId, toErrorCode(e))))
+                .subscriberContext(Deadline.attach(timeout)),
+            concurrency);
+  }
+
+  /**
+   * Returns the error code of a failed batch entry; errors that were not mapped are internal.
+   */
+  private static ErrorCode toErrorCode(Throwable e) {
+    if (e instanceof ApplicationException) {
+      return ((ApplicationException) e).getErrorCode();
+    }
+    log.warn("Batch entry failed with an unexpected error", e);
+    return ErrorCode.INTERNAL_ERROR;
+  }
+
+  /**
+   * Creates the customers with at most {@code concurrency} creations at once, each within its own
+   * {@code timeout}. Records are only requested from {@code records} as creations complete, so
+   * a large input is never held in memory. Results are emitted as they complete, tagged with the
+   * position of their record; a record that cannot be read or created is returned as a result
+   * carrying its error.
+   */
+  public Flux<CustomerBatchResult> importCustomers(Flux<Mono<Customer>> records, int concurrency,
+      Duration timeout) {
+    return records
+        .index()
+        .flatMap(record -> record.getT2()
+                .flatMap(customerRequest -> addCustomer(customerRequest)
+                    .map(customer -> CustomerBatchResult.succeeded(customer.getId(), customer))
+                    .onErrorResume(e -> Mono.just(
+                        CustomerBatchResult.failed(customerRequest.getId(), toErrorCode(e)))))
+                .onErrorResume(e -> Mono.just(CustomerBatchResult.failed(null, toErrorCode(e))))
+                .map(result -> result.toBuilder().index(record.getT1()).build())
+                .subscriberContext(Deadline.attach(timeout)),
+            concurrency, 1);
+  }
+
   public Mono<CustomerAddress> addAddress(CustomerAddress addressRequest) {
     return validateAddressRequest(addressRequest)
         .flatMap(request -> userService.getUser(request.getCustomerId()))
@@ -58,6 +171,12 @@ public class CustomerService {
         .map(this::toCustomerAddress);
   }
 
+  public Mono<Page<CustomerAddress>> getCustomerAddressPage(String customerId, int limit,
+      String cursor) {
+    return addressService.getAddressPage(customerId, limit, cursor)
+        .map(page -> page.map(addresses -> addresses.map(this::toCustomerAddress)));
+  }
+
   public Mono<CustomerAddress> getCustomerAddress(String customerId, String addressId) {
     return addressService.getAddress(customerId, addressId)
         .map(this::toCustomerAddress);
@@ -69,6 +188,12 @@ public class CustomerService {
   }
 
 
+  private static boolean isUnavailable(Throwable e) {
+    return e instanceof ApplicationException
+        && (((ApplicationException) e).getErrorCode() == ErrorCode.ADDRESS_SERVICE_ERROR
+        || ((ApplicationException) e).getErrorCode() == ErrorCode.DEADLINE_EXCEEDED);
+  }
+
   private Mono<Customer> validateCustomerRequest(Customer customer) {
     return Mono.just(customer);
   }
@@ -115,6 +240,9 @@ public class CustomerService {
   }
 
   private List<Address> toAddressList(List<CustomerAddress> customerAddressList) {
+    if (customerAddressList == null) {
+      return Collections.emptyList();
+    }
     return customerAddressList.stream()
         .map(this::toAddress)
         .collect(Collectors.toList());
@@ -0,0 +1,40 @@
+package com.swarts.customerservice.service;
+
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Component
+@ConfigurationProperties(prefix = "customer-service.fallback")
+public class FallbackProperties {
+
+  @Builder.Default
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of customers whose last good response is kept, per downstream service.
+   */
+  @Builder.Default
+  private long maximumSize = 10_000;
+
+  /**
+   * Age after which a kept response is no longer served.
+   */
+  @Builder.Default
+  private Duration maxStaleness = Duration.ofHours(1);
+
+  /**
+   * Minimum time between two background reloads of the same customer, so that serving kept
+   * responses does not add load to a failing service.
+   */
+  @Builder.Default
+  private Duration reloadInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,103 @@
+package com.swarts.customerservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the last good response of a downstream service per customer, to be served when the
+ * service fails. Serving a kept response marks the request {@link Staleness stale} and starts a
+ * background reload, which replaces the kept response once the service has recovered. A customer
+ * is reloaded at most once per {@code reloadInterval}; reloads go through the circuit breaker of
+ * the client, so none reach a service whose breaker is open.
+ */
+@Slf4j
+class FallbackStore<V> {
+
+  private final String name;
+  private final Cache<String, Entry<V>> store;
+  private final Function<String, Mono<V>> loader;
+  private final Set<String> reloading = ConcurrentHashMap.newKeySet();
+  private final Cache<String, Boolean> reloaded;
+  private final Counter served;
+  private final Counter reloads;
+
+  FallbackStore(String name, FallbackProperties properties, Function<String, Mono<V>> loader,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.store = properties.isEnabled()
+        ? Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getMaxStaleness())
+            .build()
+        : null;
+    this.reloaded = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getReloadInterval())
+        .build();
+    this.loader = loader;
+    this.served = Counter.builder("fallback.served")
+        .tag("name", name)
+        .register(meterRegistry);
+    this.reloads = Counter.builder("fallback.reloaded")
+        .tag("name", name)
+        .register(meterRegistry);
+  }
+
+  void put(String key, V value) {
+    if (store != null && key != null) {
+      store.put(key, new Entry<>(value, Instant.now()));
+    }
+  }
+
+  void invalidate(String key) {
+    if (store != null && key != null) {
+      store.invalidate(key);
+    }
+  }
+
+  /**
+   * Returns the kept response for {@code key}, or fails with {@code error} when there is none.
+   */
+  Mono<V> get(String key, Throwable error) {
+    Entry<V> entry = store != null ? store.getIfPresent(key) : null;
+    if (entry == null) {
+      return Mono.error(error);
+    }
+    served.increment();
+    reload(key);
+    return Staleness.record(Duration.between(entry.storedAt, Instant.now()))
+        .thenReturn(entry.value);
+  }
+
+  private void reload(String key) {
+    if (reloaded.asMap().putIfAbsent(key, Boolean.TRUE) != null || !reloading.add(key)) {
+      return;
+    }
+    loader.apply(key)
+        .doFinally(signal -> reloading.remove(key))
+        .subscribe(value -> {
+          put(key, value);
+          reloads.increment();
+        }, e -> log.debug("Reload of {} for {} failed: {}", name, key, e.getMessage()));
+  }
+
+  private static class Entry<V> {
+
+    private final V value;
+    private final Instant storedAt;
+
+    private Entry(V value, Instant storedAt) {
+      this.value = value;
+      this.storedAt = storedAt;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.swarts.customerservice.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Collects the age of the oldest fallback data used for a response. It is carried in the Reactor
+ * context of the request; a stale response gets an {@code Age} header and a {@code 110} warning.
+ */
+public class Staleness {
+
+  public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+  private Duration age;
+
+  public static Function<Context, Context> attach(Staleness staleness) {
+    return context -> context.put(Staleness.class, staleness);
+  }
+
+  static Mono<Void> record(Duration age) {
+    return Mono.subscriberContext()
+        .doOnNext(context -> context.<Staleness>getOrEmpty(Staleness.class)
+            .ifPresent(staleness -> staleness.mark(age)))
+        .then();
+  }
+
+  public synchronized boolean isStale() {
+    return age != null;
+  }
+
+  public synchronized void applyTo(HttpHeaders headers) {
+    if (age != null) {
+      headers.set(HttpHeaders.AGE, String.valueOf(age.getSeconds()));
+      headers.set(HttpHeaders.WARNING, STALE_WARNING);
+    }
+  }
+
+  private synchronized void mark(Duration age) {
+    if (this.age == null || age.compareTo(this.age) > 0) {
+      this.age = age;
+    }
+  }
+}
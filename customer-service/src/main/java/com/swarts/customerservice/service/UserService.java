@@ -1,36 +1,108 @@
 package com.swarts.customerservice.service;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.DeadlineExceededException;
 import com.swarts.customerservice.client.user.User;
+import com.swarts.customerservice.client.user.UserCacheProperties;
 import com.swarts.customerservice.client.user.UserWebClient;
 import com.swarts.customerservice.exception.ApplicationException;
 import com.swarts.customerservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 @Service
 public class UserService {
 
+  private static final String CACHE_NAME = "users";
+  private static final String FALLBACK_NAME = "user";
+
   private final UserWebClient userWebClient;
+  private final AsyncLoadingCache<String, User> userCache;
+  private final FallbackStore<User> fallbackStore;
 
-  public UserService(UserWebClient userWebClient) {
+  public UserService(UserWebClient userWebClient,
+      UserCacheProperties userCacheProperties,
+      FallbackProperties fallbackProperties,
+      MeterRegistry meterRegistry) {
     this.userWebClient = userWebClient;
+    this.userCache = userCacheProperties.isEnabled()
+        ? createCache(userCacheProperties, meterRegistry)
+        : null;
+    this.fallbackStore = new FallbackStore<>(FALLBACK_NAME, fallbackProperties,
+        userWebClient::getUser, meterRegistry);
   }
 
   public Mono<User> addUser(User user) {
     return userWebClient.addUser(user)
+        .doOnNext(this::cacheUser)
         .onErrorMap(ClientException::isClientError,
             e -> new ApplicationException(ErrorCode.USER_INVALID_REQUEST))
         .onErrorMap(ClientException::isServerError,
-            e -> new ApplicationException(ErrorCode.USER_SERVICE_ERROR));
+            e -> new ApplicationException(ErrorCode.USER_SERVICE_ERROR))
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED));
   }
 
   public Mono<User> getUser(String userId) {
-    return userWebClient.getUser(userId)
+    return getCachedUser(userId)
+        .doOnNext(user -> fallbackStore.put(userId, user))
+        .onErrorResume(UserService::isUnavailable, e -> fallbackStore.get(userId, e))
         .onErrorMap(ClientException::isClientError,
             e -> new ApplicationException(ErrorCode.CUSTOMER_NOT_FOUND))
         .onErrorMap(ClientException::isServerError,
-            e -> new ApplicationException(ErrorCode.USER_SERVICE_ERROR));
+            e -> new ApplicationException(ErrorCode.USER_SERVICE_ERROR))
+        .onErrorMap(DeadlineExceededException.class,
+            e -> new ApplicationException(ErrorCode.DEADLINE_EXCEEDED));
+  }
+
+  private Mono<User> getCachedUser(String userId) {
+    if (userCache == null) {
+      return userWebClient.getUser(userId);
+    }
+    // loads in the caller's context, so that the request deadline applies to the downstream call;
+    // a dependent stage, so that a cancelled caller does not cancel a load shared with others
+    return Mono.subscriberContext()
+        .flatMap(context -> Mono.fromFuture(userCache
+            .get(userId, (key, executor) -> userWebClient.getUser(key)
+                .subscriberContext(context)
+                .toFuture())
+            .thenApply(Function.identity())))
+        .onErrorMap(CompletionException.class, Throwable::getCause);
+  }
+
+  private static boolean isUnavailable(Throwable e) {
+    return ClientException.isServerError(e) || e instanceof DeadlineExceededException;
+  }
+
+  private void cacheUser(User user) {
+    if (userCache != null && user.getId() != null) {
+      userCache.put(user.getId(), CompletableFuture.completedFuture(user));
+    }
+  }
+
+  private AsyncLoadingCache<String, User> createCache(UserCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    AsyncLoadingCache<String, User> cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getExpireAfterWrite())
+        .refreshAfterWrite(properties.getRefreshAfterWrite())
+        .recordStats()
+        // only refreshes load here, bounded by the call timeout; reads load in their own context
+        .buildAsync((userId, executor) -> userWebClient.getUser(userId).toFuture());
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+    Gauge.builder("cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+        .tag("cache", CACHE_NAME)
+        .register(meterRegistry);
+    return cache;
   }
 
 }
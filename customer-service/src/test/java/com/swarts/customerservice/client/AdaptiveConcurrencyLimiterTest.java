@@ -0,0 +1,144 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private SimpleMeterRegistry meterRegistry;
+  private AdaptiveConcurrencyLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    limiter = new AdaptiveConcurrencyLimiter("test-service",
+        ConcurrencyLimitProperties.builder().build(), meterRegistry);
+  }
+
+  @Test
+  void limitShouldGrowWhileLatencyIsStable() {
+    for (int i = 0; i < 10; i++) {
+      limiter.onSample(RTT, limiter.getLimit(), false);
+    }
+
+    assertThat(limiter.getLimit(), greaterThan(20));
+    assertThat(meterRegistry.get("client.concurrency.limit").gauge().value(),
+        is((double) limiter.getLimit()));
+  }
+
+  @Test
+  void limitShouldShrinkWhenLatencyGrows() {
+    limiter.onSample(RTT, limiter.getLimit(), false);
+    for (int i = 0; i < 5; i++) {
+      limiter.onSample(RTT * 10, limiter.getLimit(), false);
+    }
+
+    assertThat(limiter.getLimit(), lessThan(20));
+  }
+
+  @Test
+  void limitShouldShrinkAfterFailedCall() {
+    limiter.onSample(RTT, limiter.getLimit(), true);
+
+    assertThat(limiter.getLimit(), is(18));
+  }
+
+  @Test
+  void filterShouldShrinkLimitWhenCallTimesOut() {
+    ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/"))
+        .header(Deadline.HEADER, "20")
+        .build();
+
+    StepVerifier.create(limiter.filter().filter(request, clientRequest -> Mono.never())
+            .timeout(Duration.ofMillis(50)))
+        .expectError(TimeoutException.class)
+        .verify();
+
+    assertThat(limiter.getLimit(), is(18));
+  }
+
+  @Test
+  void filterShouldNotSampleCallCancelledBeforeItsDeadline() {
+    ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/"))
+        .header(Deadline.HEADER, "1000")
+        .build();
+
+    StepVerifier.create(limiter.filter().filter(request, clientRequest -> Mono.never()))
+        .thenCancel()
+        .verify();
+
+    assertThat(limiter.getLimit(), is(20));
+  }
+
+  @Test
+  void limitShouldNotGrowWhenItIsNotUsed() {
+    for (int i = 0; i < 10; i++) {
+      limiter.onSample(RTT, 1, false);
+    }
+
+    assertThat(limiter.getLimit(), is(20));
+  }
+
+  @Test
+  void filterShouldRejectCallsOverLimit() {
+    AdaptiveConcurrencyLimiter singleCallLimiter = new AdaptiveConcurrencyLimiter("test-service",
+        ConcurrencyLimitProperties.builder()
+            .initialLimit(1)
+            .minLimit(1)
+            .build(), meterRegistry);
+    ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/"))
+        .build();
+    ExchangeFunction never = clientRequest -> Mono.never();
+
+    singleCallLimiter.filter().filter(request, never).subscribe();
+
+    StepVerifier.create(singleCallLimiter.filter().filter(request, never))
+        .expectErrorMatches(ClientException::isRejected)
+        .verify();
+    assertThat(meterRegistry.counter("client.concurrency.rejected", "name", "test-service")
+        .count(), is(1.0));
+  }
+
+  @Test
+  void filterShouldHoldSlotUntilBodyIsRead() {
+    AdaptiveConcurrencyLimiter singleCallLimiter = new AdaptiveConcurrencyLimiter("test-service",
+        ConcurrencyLimitProperties.builder()
+            .initialLimit(1)
+            .minLimit(1)
+            .build(), meterRegistry);
+    ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/"))
+        .build();
+    ExchangeFunction exchange = clientRequest -> Mono.just(ClientResponse.create(HttpStatus.OK)
+        .body("body")
+        .build());
+
+    ClientResponse response = singleCallLimiter.filter().filter(request, exchange).block();
+
+    StepVerifier.create(singleCallLimiter.filter().filter(request, exchange))
+        .expectErrorMatches(ClientException::isRejected)
+        .verify();
+    response.releaseBody().block();
+    StepVerifier.create(singleCallLimiter.filter().filter(request, exchange))
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+}
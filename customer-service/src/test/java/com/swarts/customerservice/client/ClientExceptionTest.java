@@ -0,0 +1,79 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.test.StepVerifier;
+
+class ClientExceptionTest {
+
+  @Test
+  void fromShouldDecodeErrorBody() {
+    ClientResponse response = response(HttpStatus.BAD_REQUEST,
+        "{\"code\":1001,\"message\":\"Invalid email\",\"details\":\"ignored\"}");
+
+    StepVerifier.create(ClientException.from(response))
+        .assertNext(exception -> {
+          assertThat(exception.getStatus(), is(HttpStatus.BAD_REQUEST));
+          assertThat(exception.getMessage(), is("Invalid email"));
+          assertThat(exception.getError().getCode(), is(1001));
+          assertThat(exception.getError().getMessage(), is("Invalid email"));
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void fromShouldDiscardMalformedErrorBody() {
+    ClientResponse response = response(HttpStatus.INTERNAL_SERVER_ERROR, "<html>oops</html>");
+
+    StepVerifier.create(ClientException.from(response))
+        .assertNext(exception -> {
+          assertThat(exception.isServerError(), is(true));
+          assertThat(exception.getMessage(), is("Internal Server Error"));
+          assertThat(exception.getError(), is(nullValue()));
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void fromShouldDiscardTooLargeErrorBody() {
+    char[] padding = new char[ClientException.MAX_ERROR_BODY_SIZE];
+    Arrays.fill(padding, 'x');
+    ClientResponse response = response(HttpStatus.BAD_GATEWAY,
+        "{\"code\":1,\"message\":\"" + new String(padding) + "\"}");
+
+    StepVerifier.create(ClientException.from(response))
+        .assertNext(exception -> {
+          assertThat(exception.getStatus(), is(HttpStatus.BAD_GATEWAY));
+          assertThat(exception.getError(), is(nullValue()));
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void fromShouldHandleEmptyErrorBody() {
+    ClientResponse response = ClientResponse.create(HttpStatus.NOT_FOUND).build();
+
+    StepVerifier.create(ClientException.from(response))
+        .assertNext(exception -> {
+          assertThat(exception.isClientError(), is(true));
+          assertThat(exception.getMessage(), is("Not Found"));
+          assertThat(exception.getError(), is(nullValue()));
+        })
+        .verifyComplete();
+  }
+
+  private static ClientResponse response(HttpStatus status, String body) {
+    return ClientResponse.create(status)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .body(body)
+        .build();
+  }
+}
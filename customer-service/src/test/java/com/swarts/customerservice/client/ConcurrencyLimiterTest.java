@@ -0,0 +1,97 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.net.URI;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ConcurrencyLimiterTest {
+
+  @Test
+  void acquireShouldGrantPermitsUpToLimit() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 10);
+
+    StepVerifier.create(limiter.acquire()).expectNextCount(1).verifyComplete();
+    StepVerifier.create(limiter.acquire()).expectNextCount(1).verifyComplete();
+
+    assertThat(limiter.getInFlight(), is(2));
+  }
+
+  @Test
+  void acquireShouldWaitUntilPermitIsReleased() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 10);
+    ConcurrencyLimiter.Permit permit = limiter.acquire().block();
+
+    StepVerifier.create(limiter.acquire())
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(50))
+        .then(permit::release)
+        .expectNextCount(1)
+        .verifyComplete();
+    assertThat(limiter.getInFlight(), is(1));
+  }
+
+  @Test
+  void acquireShouldRejectWhenQueueIsFull() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 0);
+    limiter.acquire().block();
+
+    StepVerifier.create(limiter.acquire())
+        .expectErrorMatches(ClientException::isRejected)
+        .verify();
+  }
+
+  @Test
+  void cancelledWaiterShouldNotHoldPermit() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 10);
+    ConcurrencyLimiter.Permit permit = limiter.acquire().block();
+
+    Disposable cancelled = limiter.acquire().subscribe();
+    cancelled.dispose();
+    permit.release();
+
+    assertThat(limiter.getInFlight(), is(0));
+  }
+
+  @Test
+  void setLimitShouldGrantQueuedWaiters() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 10);
+    limiter.acquire().block();
+
+    StepVerifier.create(limiter.acquire())
+        .expectSubscription()
+        .then(() -> limiter.setLimit(2))
+        .expectNextCount(1)
+        .verifyComplete();
+    assertThat(limiter.getInFlight(), is(2));
+  }
+
+  @Test
+  void filterShouldHoldPermitUntilBodyIsRead() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 10);
+    ExchangeFunction exchange = request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+        .body("body")
+        .build());
+
+    ClientResponse response = limiter.filter()
+        .filter(ClientRequest.create(HttpMethod.GET, URI.create("http://localhost")).build(),
+            exchange)
+        .block();
+
+    assertThat(limiter.getInFlight(), is(1));
+    StepVerifier.create(response.bodyToMono(String.class))
+        .expectNext("body")
+        .verifyComplete();
+    assertThat(limiter.getInFlight(), is(0));
+  }
+}
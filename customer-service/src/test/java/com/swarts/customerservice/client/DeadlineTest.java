@@ -0,0 +1,57 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class DeadlineTest {
+
+  @Test
+  void limitShouldFailWhenCallDoesNotCompleteInTime() {
+    StepVerifier.create(Deadline.limit(Duration.ofMillis(50), deadline -> Mono.never()))
+        .expectError(DeadlineExceededException.class)
+        .verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void limitShouldNotCallDownstreamWhenRequestDeadlineIsExpired() {
+    AtomicBoolean called = new AtomicBoolean();
+
+    Mono<String> call = Deadline.<String>limit(Duration.ofSeconds(1), deadline -> {
+      called.set(true);
+      return Mono.just("value");
+    }).subscriberContext(Deadline.attach(Duration.ZERO));
+
+    StepVerifier.create(call)
+        .expectError(DeadlineExceededException.class)
+        .verify();
+    assertThat(called.get(), is(false));
+  }
+
+  @Test
+  void limitShouldUseRequestDeadlineWhenItIsShorterThanCallTimeout() {
+    Mono<Boolean> call = Deadline.limit(Duration.ofSeconds(10),
+        deadline -> Mono.just(deadline.remaining().compareTo(Duration.ofSeconds(1)) <= 0))
+        .subscriberContext(Deadline.attach(Duration.ofSeconds(1)));
+
+    StepVerifier.create(call)
+        .expectNext(true)
+        .verifyComplete();
+  }
+
+  @Test
+  void limitManyShouldBoundTheWholeStream() {
+    Flux<Long> slowStream = Flux.interval(Duration.ofMillis(30));
+
+    StepVerifier.create(Deadline.limitMany(Duration.ofMillis(100), deadline -> slowStream))
+        .thenConsumeWhile(value -> true)
+        .expectError(DeadlineExceededException.class)
+        .verify(Duration.ofSeconds(1));
+  }
+}
@@ -0,0 +1,138 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class HedgePolicyTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void hedgeShouldCallOnceWhenDisabled() {
+    HedgePolicy hedgePolicy = new HedgePolicy("test-service", HedgeProperties.builder().build(),
+        meterRegistry);
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedgePolicy.hedge(() -> {
+      calls.incrementAndGet();
+      return Mono.delay(Duration.ofMillis(50)).thenReturn("value");
+    }))
+        .expectNext("value")
+        .verifyComplete();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void hedgeShouldUseFastestResponseWhenCallIsSlow() {
+    HedgePolicy hedgePolicy = enabledHedgePolicy(10);
+    warmUp(hedgePolicy);
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedgePolicy.hedge(() -> calls.incrementAndGet() == 1
+        ? Mono.delay(Duration.ofSeconds(5)).thenReturn("slow")
+        : Mono.just("fast")))
+        .expectNext("fast")
+        .expectComplete()
+        .verify(Duration.ofSeconds(1));
+    assertThat(calls.get(), is(2));
+    assertThat(count("fired"), is(1.0));
+    assertThat(count("won"), is(1.0));
+  }
+
+  @Test
+  void hedgeShouldKeepSlowCallWhenHedgeFails() {
+    HedgePolicy hedgePolicy = enabledHedgePolicy(10);
+    warmUp(hedgePolicy);
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedgePolicy.hedge(() -> calls.incrementAndGet() == 1
+        ? Mono.delay(Duration.ofMillis(200)).thenReturn("slow")
+        : Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable"))))
+        .expectNext("slow")
+        .expectComplete()
+        .verify(Duration.ofSeconds(1));
+    assertThat(calls.get(), is(2));
+    assertThat(count("won"), is(0.0));
+  }
+
+  @Test
+  void hedgeShouldNotFireWhenBudgetIsSpent() {
+    HedgePolicy hedgePolicy = enabledHedgePolicy(0);
+    warmUp(hedgePolicy);
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedgePolicy.hedge(() -> {
+      calls.incrementAndGet();
+      return Mono.delay(Duration.ofMillis(100)).thenReturn("slow");
+    }))
+        .expectNext("slow")
+        .verifyComplete();
+    assertThat(calls.get(), is(1));
+    assertThat(count("denied"), is(1.0));
+  }
+
+  @Test
+  void hedgeManyShouldUseFastestResponseWhenCallIsSlow() {
+    HedgePolicy hedgePolicy = enabledHedgePolicy(10);
+    warmUp(hedgePolicy);
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedgePolicy.hedgeMany(() -> calls.incrementAndGet() == 1
+        ? Flux.just(1, 2).delaySubscription(Duration.ofSeconds(5))
+        : Flux.just(3, 4)))
+        .expectNext(3, 4)
+        .expectComplete()
+        .verify(Duration.ofSeconds(1));
+    assertThat(count("won"), is(1.0));
+  }
+
+  @Test
+  void hedgeManyShouldKeepSlowCallWhenHedgeFails() {
+    HedgePolicy hedgePolicy = enabledHedgePolicy(10);
+    warmUp(hedgePolicy);
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(hedgePolicy.hedgeMany(() -> calls.incrementAndGet() == 1
+        ? Flux.just(1, 2).delaySubscription(Duration.ofMillis(200))
+        : Flux.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable"))))
+        .expectNext(1, 2)
+        .expectComplete()
+        .verify(Duration.ofSeconds(1));
+    assertThat(count("won"), is(0.0));
+  }
+
+  private HedgePolicy enabledHedgePolicy(int budgetMaxTokens) {
+    return new HedgePolicy("test-service", HedgeProperties.builder()
+        .enabled(true)
+        .minDelay(Duration.ofMillis(10))
+        .minSamples(1)
+        .budgetMaxTokens(budgetMaxTokens)
+        .build(), meterRegistry);
+  }
+
+  private void warmUp(HedgePolicy hedgePolicy) {
+    StepVerifier.create(hedgePolicy.hedge(() -> Mono.just("warm-up")))
+        .expectNext("warm-up")
+        .verifyComplete();
+  }
+
+  private double count(String result) {
+    return meterRegistry.counter("client.hedges", "name", "test-service", "result", result)
+        .count();
+  }
+}
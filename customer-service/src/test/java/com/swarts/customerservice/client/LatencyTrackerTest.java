@@ -0,0 +1,33 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+
+  @Test
+  void percentileShouldBeEmptyUntilMinSamplesAreRecorded() {
+    LatencyTracker tracker = new LatencyTracker(10, 0.95, 2, Duration.ofSeconds(1));
+    tracker.record(Duration.ofMillis(5));
+
+    assertThat(tracker.percentile(), is(Optional.empty()));
+
+    tracker.record(Duration.ofMillis(7));
+
+    assertThat(tracker.percentile(), is(Optional.of(Duration.ofMillis(7))));
+  }
+
+  @Test
+  void percentileShouldBeComputedFromMostRecentSamples() {
+    LatencyTracker tracker = new LatencyTracker(20, 0.95, 1, Duration.ZERO);
+    for (int i = 1; i <= 40; i++) {
+      tracker.record(Duration.ofMillis(i));
+    }
+
+    assertThat(tracker.percentile(), is(Optional.of(Duration.ofMillis(39))));
+  }
+}
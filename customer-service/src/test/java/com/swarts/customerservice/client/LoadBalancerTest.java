@@ -0,0 +1,162 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class LoadBalancerTest {
+
+  private MockWebServer first;
+  private MockWebServer second;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    first = server(200);
+    second = server(200);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    first.shutdown();
+    second.shutdown();
+  }
+
+  @Test
+  void filterShouldSpreadRequestsOverInstances() throws InterruptedException {
+    WebClient webClient = webClient(LoadBalancerProperties.builder().build());
+
+    call(webClient, 20);
+
+    assertThat(first.getRequestCount(), greaterThan(0));
+    assertThat(second.getRequestCount(), greaterThan(0));
+    assertThat(first.getRequestCount() + second.getRequestCount(), is(20));
+    assertThat(second.takeRequest().getPath(), is("/users/user-1?fields=id"));
+  }
+
+  @Test
+  void filterShouldEjectInstanceAfterConsecutiveFailures() throws IOException {
+    first.shutdown();
+    first = server(503);
+    WebClient webClient = webClient(LoadBalancerProperties.builder()
+        .consecutiveFailures(2)
+        .ejectionTime(Duration.ofMinutes(1))
+        .build());
+
+    call(webClient, 20);
+    int failedRequests = first.getRequestCount();
+    call(webClient, 20);
+
+    assertThat(first.getRequestCount(), is(failedRequests));
+    assertThat(meterRegistry.counter("client.instance.ejections",
+        "name", "test-service", "instance", first.url("").host() + ":" + first.getPort()).count(),
+        is(1.0));
+  }
+
+  @Test
+  void filterShouldReinstateInstanceAfterEjectionTime() throws IOException {
+    first.shutdown();
+    first = server(503);
+    WebClient webClient = webClient(LoadBalancerProperties.builder()
+        .consecutiveFailures(1)
+        .ejectionTime(Duration.ofMillis(50))
+        .build());
+
+    call(webClient, 10);
+    int failedRequests = first.getRequestCount();
+    Mono.delay(Duration.ofMillis(100)).block();
+    call(webClient, 20);
+
+    assertThat(first.getRequestCount(), greaterThan(failedRequests));
+  }
+
+  @Test
+  void filterShouldUseBasePathOfChosenInstance() throws InterruptedException {
+    LoadBalancer loadBalancer = new LoadBalancer("test-service",
+        Arrays.asList(first.url("/api").toString(), second.url("/v2/api/").toString()),
+        LoadBalancerProperties.builder().build(), meterRegistry);
+    WebClient webClient = WebClient.builder()
+        .baseUrl(first.url("/api").toString())
+        .filter(loadBalancer.filter())
+        .build();
+
+    call(webClient, 20);
+
+    assertThat(first.takeRequest().getPath(), is("/api/users/user-1?fields=id"));
+    assertThat(second.takeRequest().getPath(), is("/v2/api/users/user-1?fields=id"));
+  }
+
+  @Test
+  void filterShouldCountRequestAsOutstandingUntilBodyIsRead() {
+    LoadBalancer loadBalancer = new LoadBalancer("test-service",
+        Arrays.asList(first.url("").toString()), LoadBalancerProperties.builder().build(),
+        meterRegistry);
+    WebClient webClient = WebClient.builder()
+        .baseUrl(first.url("").toString())
+        .filter(loadBalancer.filter())
+        .build();
+    String instance = first.url("").host() + ":" + first.getPort();
+
+    ClientResponse response = webClient.get().uri("/users/user-1").exchange().block();
+
+    assertThat(outstanding(instance), is(1.0));
+    response.releaseBody().block();
+    assertThat(outstanding(instance), is(0.0));
+  }
+
+  private double outstanding(String instance) {
+    return meterRegistry.get("client.instance.outstanding")
+        .tag("name", "test-service")
+        .tag("instance", instance)
+        .gauge()
+        .value();
+  }
+
+  private WebClient webClient(LoadBalancerProperties properties) {
+    LoadBalancer loadBalancer = new LoadBalancer("test-service",
+        Arrays.asList(first.url("").toString(), second.url("").toString()), properties,
+        meterRegistry);
+    return WebClient.builder()
+        .baseUrl(first.url("").toString())
+        .filter(loadBalancer.filter())
+        .build();
+  }
+
+  private static void call(WebClient webClient, int count) {
+    Flux.range(0, count)
+        .concatMap(i -> webClient.get()
+            .uri("/users/{userId}?fields=id", "user-1")
+            .exchange()
+            .flatMap(response -> response.releaseBody()))
+        .blockLast(Duration.ofSeconds(10));
+  }
+
+  private static MockWebServer server(int status) throws IOException {
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse().setResponseCode(status);
+      }
+    });
+    server.start();
+    return server;
+  }
+}
@@ -0,0 +1,120 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class MicroBatcherTest {
+
+  private MeterRegistry meterRegistry;
+  private List<List<String>> batches;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    batches = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  void concurrentReadsShouldShareOneMultiGet() {
+    MicroBatcher<String> batcher = batcher(Duration.ofMillis(50), 10,
+        keys -> Flux.fromIterable(keys).map(key -> key + "-value"));
+
+    StepVerifier.create(Mono.zip(batcher.get("a"), batcher.get("b"), batcher.get("a")))
+        .expectNextMatches(tuple -> tuple.getT1().equals("a-value")
+            && tuple.getT2().equals("b-value")
+            && tuple.getT3().equals("a-value"))
+        .verifyComplete();
+
+    assertThat(batches, is(Collections.singletonList(Arrays.asList("a", "b"))));
+    assertThat(meterRegistry.get("client.batch.size").summary().count(), is(1L));
+    assertThat(meterRegistry.get("client.batch.size").summary().totalAmount(), is(3.0));
+  }
+
+  @Test
+  void fullBatchShouldBeSentBeforeTheWindowEnds() {
+    MicroBatcher<String> batcher = batcher(Duration.ofSeconds(10), 2,
+        keys -> Flux.fromIterable(keys).map(key -> key + "-value"));
+
+    StepVerifier.create(Mono.zip(batcher.get("a"), batcher.get("b")))
+        .expectNextCount(1)
+        .expectComplete()
+        .verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void missingKeyShouldCompleteEmptyForItsCallerOnly() {
+    MicroBatcher<String> batcher = batcher(Duration.ofMillis(50), 10,
+        keys -> Flux.just("a-value"));
+
+    Mono<String> missing = batcher.get("b");
+
+    StepVerifier.create(Mono.zip(batcher.get("a"), missing.defaultIfEmpty("none")))
+        .expectNextMatches(tuple -> tuple.getT1().equals("a-value")
+            && tuple.getT2().equals("none"))
+        .verifyComplete();
+  }
+
+  @Test
+  void failedMultiGetShouldFailEveryCaller() {
+    MicroBatcher<String> batcher = batcher(Duration.ofMillis(50), 10,
+        keys -> Flux.error(new IllegalStateException("boom")));
+
+    StepVerifier.create(Flux.merge(
+            batcher.get("a").onErrorReturn("failed"),
+            batcher.get("b").onErrorReturn("failed")))
+        .expectNext("failed", "failed")
+        .verifyComplete();
+  }
+
+  @Test
+  void cancelledReadShouldBeLeftOutOfItsBatch() {
+    MicroBatcher<String> batcher = batcher(Duration.ofMillis(50), 10,
+        keys -> Flux.fromIterable(keys).map(key -> key + "-value"));
+
+    batcher.get("a").subscribe().dispose();
+
+    StepVerifier.create(batcher.get("b"))
+        .expectNext("b-value")
+        .verifyComplete();
+    assertThat(batches, is(Collections.singletonList(Collections.singletonList("b"))));
+  }
+
+  @Test
+  void multiGetShouldRunWithinDeadlineOfItsCallers() {
+    MicroBatcher<String> batcher = batcher(Duration.ofMillis(50), 10,
+        keys -> Mono.subscriberContext()
+            .filter(context -> context.hasKey(Deadline.class))
+            .flatMapMany(context -> Flux.fromIterable(keys).map(key -> key + "-value")));
+
+    StepVerifier.create(batcher.get("a").subscriberContext(Deadline.attach(Duration.ofSeconds(1))))
+        .expectNext("a-value")
+        .verifyComplete();
+  }
+
+  private MicroBatcher<String> batcher(Duration window, int maxBatchSize,
+      Function<List<String>, Flux<String>> multiGet) {
+    BatchProperties properties = BatchProperties.builder()
+        .enabled(true)
+        .window(window)
+        .maxBatchSize(maxBatchSize)
+        .build();
+    return new MicroBatcher<>("test", properties, keys -> {
+      batches.add(keys);
+      return multiGet.apply(keys);
+    }, value -> value.substring(0, value.indexOf('-')), meterRegistry);
+  }
+}
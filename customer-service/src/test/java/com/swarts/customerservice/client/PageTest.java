@@ -0,0 +1,52 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class PageTest {
+
+  private final AtomicInteger releases = new AtomicInteger();
+
+  @Test
+  void releaseShouldFreeUnreadItemsOnce() {
+    Page<String> page = new Page<>(Flux.just("a"), "next", releases::incrementAndGet)
+        .map(items -> items.map(String::toUpperCase));
+
+    page.release();
+    page.release();
+
+    assertThat(releases.get(), is(1));
+  }
+
+  @Test
+  void releaseShouldNotFreeItemsThatWereRead() {
+    Page<String> page = new Page<>(Flux.just("a"), "next", releases::incrementAndGet)
+        .map(items -> items.map(String::toUpperCase));
+
+    StepVerifier.create(page.getItems())
+        .expectNext("A")
+        .verifyComplete();
+    page.release();
+
+    assertThat(releases.get(), is(0));
+  }
+
+  @Test
+  void discardedPageShouldBeReleased() {
+    Mono<Page<String>> page = Mono.just(new Page<>(Flux.just("a"), "next",
+        releases::incrementAndGet));
+
+    StepVerifier.create(page
+            .filter(p -> false)
+            .doOnDiscard(Page.class, Page::release))
+        .verifyComplete();
+
+    assertThat(releases.get(), is(1));
+  }
+}
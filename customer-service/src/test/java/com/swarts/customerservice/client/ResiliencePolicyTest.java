@@ -0,0 +1,252 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Builder;
+import lombok.Data;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.test.StepVerifier;
+
+class ResiliencePolicyTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private ResiliencePolicy policy;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    policy = new ResiliencePolicy("test-service", TestProperties.builder()
+        .timeout(Duration.ofMillis(100))
+        .pool(ConnectionPoolProperties.builder().build())
+        .circuitBreaker(CircuitBreakerProperties.builder()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .build())
+        .retry(RetryProperties.builder()
+            .initialBackoff(Duration.ofMillis(1))
+            .build())
+        .build(), meterRegistry);
+  }
+
+  @Test
+  void callShouldOpenAfterServerErrorsAndRejectWithoutCalling() {
+    AtomicInteger calls = new AtomicInteger();
+    for (int i = 0; i < 4; i++) {
+      StepVerifier.create(policy.call(() -> {
+        calls.incrementAndGet();
+        return Mono.error(new ClientException(HttpStatus.INTERNAL_SERVER_ERROR, "error"));
+      }))
+          .expectError(ClientException.class)
+          .verify();
+    }
+
+    StepVerifier.create(policy.call(() -> {
+      calls.incrementAndGet();
+      return Mono.just("value");
+    }))
+        .expectErrorMatches(e -> ClientException.isRejected(e) && ClientException.isServerError(e))
+        .verify();
+    assertThat(calls.get(), is(4));
+    assertThat(policy.getCircuitBreaker().getState(), is(State.OPEN));
+    assertThat(meterRegistry.counter("client.circuit.breaker.transitions",
+        "name", "test-service", "from", "CLOSED", "to", "OPEN").count(), is(1.0));
+  }
+
+  @Test
+  void callShouldNotCountClientErrorsAsFailures() {
+    for (int i = 0; i < 4; i++) {
+      StepVerifier.create(policy.call(
+          () -> Mono.error(new ClientException(HttpStatus.NOT_FOUND, "not found"))))
+          .expectErrorMatches(ClientException::isClientError)
+          .verify();
+    }
+
+    assertThat(policy.getCircuitBreaker().getState(), is(State.CLOSED));
+  }
+
+  @Test
+  void callShouldFailWhenDownstreamTimeoutIsExceeded() {
+    StepVerifier.create(policy.call(Mono::never))
+        .expectError(DeadlineExceededException.class)
+        .verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void callManyShouldPassThroughItems() {
+    StepVerifier.create(policy.callMany(() -> Flux.just(1, 2, 3)))
+        .expectNext(1, 2, 3)
+        .verifyComplete();
+  }
+
+  @Test
+  void callManyShouldTimeEachSubscriptionSeparately() {
+    Flux<Integer> items = policy.callMany(() -> Flux.just(1).delayElements(Duration.ofMillis(60)));
+
+    StepVerifier.create(items)
+        .expectNext(1)
+        .verifyComplete();
+    StepVerifier.create(items)
+        .expectNext(1)
+        .verifyComplete();
+  }
+
+  @Test
+  void callIdempotentShouldRetryServerAndConnectionErrors() {
+    AtomicInteger calls = new AtomicInteger();
+
+    Mono<String> call = policy.callIdempotent(Deadline.after(Duration.ofSeconds(1)), () -> {
+      switch (calls.incrementAndGet()) {
+        case 1:
+          return Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable"));
+        case 2:
+          return Mono.error(new IOException("Connection reset"));
+        default:
+          return Mono.just("value");
+      }
+    });
+
+    StepVerifier.create(call)
+        .expectNext("value")
+        .verifyComplete();
+    assertThat(calls.get(), is(3));
+    assertThat(meterRegistry.counter("client.retries",
+        "name", "test-service", "result", "retried").count(), is(2.0));
+  }
+
+  @Test
+  void callIdempotentShouldStopAfterMaxAttempts() {
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(policy.callIdempotent(Deadline.after(Duration.ofSeconds(1)), () -> {
+      calls.incrementAndGet();
+      return Mono.error(new ClientException(HttpStatus.BAD_GATEWAY, "bad gateway"));
+    }))
+        .expectErrorMatches(ClientException::isServerError)
+        .verify();
+    assertThat(calls.get(), is(3));
+  }
+
+  @Test
+  void callIdempotentShouldNotRetryClientErrors() {
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(policy.callIdempotent(Deadline.after(Duration.ofSeconds(1)), () -> {
+      calls.incrementAndGet();
+      return Mono.error(new ClientException(HttpStatus.NOT_FOUND, "not found"));
+    }))
+        .expectErrorMatches(ClientException::isClientError)
+        .verify();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void callIdempotentShouldNotRetryWhenDeadlineIsTooClose() {
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(policy.callIdempotent(Deadline.after(Duration.ZERO), () -> {
+      calls.incrementAndGet();
+      return Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable"));
+    }))
+        .expectErrorMatches(ClientException::isServerError)
+        .verify();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void callIdempotentShouldNotRetryWhenBudgetIsSpent() {
+    ResiliencePolicy noBudget = new ResiliencePolicy("no-budget-service", TestProperties.builder()
+        .timeout(Duration.ofMillis(100))
+        .pool(ConnectionPoolProperties.builder().build())
+        .circuitBreaker(CircuitBreakerProperties.builder().build())
+        .retry(RetryProperties.builder()
+            .initialBackoff(Duration.ofMillis(1))
+            .budgetRatio(0)
+            .budgetMaxTokens(1)
+            .build())
+        .build(), meterRegistry);
+    AtomicInteger calls = new AtomicInteger();
+
+    for (int i = 0; i < 2; i++) {
+      StepVerifier.create(noBudget.callIdempotent(Deadline.after(Duration.ofSeconds(1)), () -> {
+        calls.incrementAndGet();
+        return Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable"));
+      }))
+          .expectErrorMatches(ClientException::isServerError)
+          .verify();
+    }
+
+    assertThat(calls.get(), is(3));
+    assertThat(meterRegistry.counter("client.retries",
+        "name", "no-budget-service", "result", "denied").count(), is(2.0));
+  }
+
+  @Test
+  void callManyIdempotentShouldNotRetryAfterItemsWereEmitted() {
+    AtomicInteger calls = new AtomicInteger();
+
+    StepVerifier.create(policy.callManyIdempotent(Deadline.after(Duration.ofSeconds(1)), () -> {
+      calls.incrementAndGet();
+      return Flux.concat(Flux.just(1),
+          Flux.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "unavailable")));
+    }))
+        .expectNext(1)
+        .expectErrorMatches(ClientException::isServerError)
+        .verify();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void callShouldNotRejectWhenCircuitBreakerIsDisabled() {
+    ResiliencePolicy disabled = new ResiliencePolicy("disabled-service", TestProperties.builder()
+        .timeout(Duration.ofMillis(100))
+        .pool(ConnectionPoolProperties.builder().build())
+        .circuitBreaker(CircuitBreakerProperties.builder()
+            .enabled(false)
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .build())
+        .build(), meterRegistry);
+
+    for (int i = 0; i < 5; i++) {
+      StepVerifier.create(disabled.call(
+          () -> Mono.error(new ClientException(HttpStatus.INTERNAL_SERVER_ERROR, "error"))))
+          .expectErrorMatches(e -> !ClientException.isRejected(e))
+          .verify();
+    }
+  }
+
+  @Data
+  @Builder
+  private static class TestProperties implements DownstreamProperties {
+
+    private String url;
+    @Builder.Default
+    private List<String> instances = new ArrayList<>();
+    @Builder.Default
+    private LoadBalancerProperties loadBalancer = new LoadBalancerProperties();
+    private Duration timeout;
+    @Builder.Default
+    private HttpProtocol protocol = HttpProtocol.HTTP11;
+    @Builder.Default
+    private int maxConcurrentStreams = 100;
+    private ConnectionPoolProperties pool;
+    private CircuitBreakerProperties circuitBreaker;
+    @Builder.Default
+    private RetryProperties retry = new RetryProperties();
+    @Builder.Default
+    private ConcurrencyLimitProperties concurrencyLimit = new ConcurrencyLimitProperties();
+  }
+}
@@ -0,0 +1,127 @@
+package com.swarts.customerservice.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class SingleFlightTest {
+
+  private MeterRegistry meterRegistry;
+  private SingleFlight<String> singleFlight;
+  private AtomicInteger calls;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    singleFlight = new SingleFlight<>("test", meterRegistry);
+    calls = new AtomicInteger();
+  }
+
+  @Test
+  void concurrentCallersShouldShareOneCall() {
+    Mono<String> first = singleFlight.mono("key", this::slowCall);
+    Mono<String> second = singleFlight.mono("key", this::slowCall);
+
+    StepVerifier.create(Mono.zip(first, second))
+        .expectNextMatches(tuple -> tuple.getT1().equals("value") && tuple.getT2().equals("value"))
+        .verifyComplete();
+
+    assertThat(calls.get(), is(1));
+    assertThat(counter("hit"), is(1.0));
+    assertThat(counter("miss"), is(1.0));
+  }
+
+  @Test
+  void callersShouldNotShareCompletedCall() {
+    StepVerifier.create(singleFlight.mono("key", this::slowCall))
+        .expectNext("value")
+        .verifyComplete();
+    StepVerifier.create(singleFlight.mono("key", this::slowCall))
+        .expectNext("value")
+        .verifyComplete();
+
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  void cancellingOneCallerShouldNotCancelSharedCall() {
+    Disposable cancelled = singleFlight.mono("key", this::slowCall).subscribe();
+
+    StepVerifier.create(singleFlight.mono("key", this::slowCall))
+        .then(cancelled::dispose)
+        .expectNext("value")
+        .verifyComplete();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void latecomersShouldReceiveAllItemsOfSharedStream() {
+    SingleFlight<Integer> streamFlight = new SingleFlight<>("stream", meterRegistry);
+    Flux<Integer> stream = Flux.range(1, 3)
+        .delayElements(Duration.ofMillis(20))
+        .doOnSubscribe(subscription -> calls.incrementAndGet());
+
+    Flux<Integer> first = streamFlight.flux("key", () -> stream);
+    Flux<Integer> second = streamFlight.flux("key", () -> stream)
+        .delaySubscription(Duration.ofMillis(30));
+
+    StepVerifier.create(Flux.merge(first, second).collectList())
+        .expectNextMatches(items -> items.size() == 6)
+        .verifyComplete();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void latecomersShouldShareStreamWhileItsFirstItemsAreReplayed() {
+    SingleFlight<Integer> streamFlight = new SingleFlight<>("stream", 2, meterRegistry);
+    Flux<Integer> stream = Flux.range(1, 4)
+        .delayElements(Duration.ofMillis(20))
+        .doOnSubscribe(subscription -> calls.incrementAndGet());
+
+    Flux<Integer> first = streamFlight.flux("key", () -> stream);
+    Flux<Integer> second = streamFlight.flux("key", () -> stream)
+        .delaySubscription(Duration.ofMillis(30));
+
+    StepVerifier.create(Flux.merge(first, second).collectList())
+        .expectNextMatches(items -> items.size() == 8)
+        .verifyComplete();
+    assertThat(calls.get(), is(1));
+  }
+
+  @Test
+  void latecomersShouldMakeOwnCallOnceFirstItemsAreNoLongerReplayed() {
+    SingleFlight<Integer> streamFlight = new SingleFlight<>("stream", 2, meterRegistry);
+    Flux<Integer> stream = Flux.range(1, 4)
+        .delayElements(Duration.ofMillis(20))
+        .doOnSubscribe(subscription -> calls.incrementAndGet());
+
+    Flux<Integer> first = streamFlight.flux("key", () -> stream);
+    Flux<Integer> second = streamFlight.flux("key", () -> stream)
+        .delaySubscription(Duration.ofMillis(60));
+
+    StepVerifier.create(Flux.merge(first, second).collectList())
+        .expectNextMatches(items -> items.size() == 8)
+        .verifyComplete();
+    assertThat(calls.get(), is(2));
+  }
+
+  private Mono<String> slowCall() {
+    return Mono.delay(Duration.ofMillis(100))
+        .doOnSubscribe(subscription -> calls.incrementAndGet())
+        .thenReturn("value");
+  }
+
+  private double counter(String result) {
+    return meterRegistry.get("client.single.flight").tag("result", result).counter().count();
+  }
+}
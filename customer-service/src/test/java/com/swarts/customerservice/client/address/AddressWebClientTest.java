@@ -1,25 +1,37 @@
 package com.swarts.customerservice.client.address;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.swarts.customerservice.client.Page;
 import com.swarts.spring.reactive.testkit.MockWebServerKit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.cloud.contract.spec.internal.MediaTypes;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 
 class AddressWebClientTest {
 
   private static final String ADDRESSES_PATH = "/address/{customerId}";
   private static final String ADDRESS_PATH = "/address/{customerId}/{addressId}";
+  private static final String ADDRESSES_BATCH_PATH = "/address/{customerId}/batch";
 
   private AddressWebClient addressWebClient;
   private MockWebServerKit mockWebTestClient;
@@ -31,8 +43,10 @@ class AddressWebClientTest {
         .url(mockWebTestClient.getMockServerUrl())
         .pathAddresses(ADDRESSES_PATH)
         .pathAddress(ADDRESS_PATH)
+        .pathAddressesBatch(ADDRESSES_BATCH_PATH)
         .build();
-    addressWebClient = new AddressWebClient(WebClient.builder(), addressProperties);
+    addressWebClient = new AddressWebClient(WebClient.builder(), addressProperties,
+        new SimpleMeterRegistry());
   }
 
   @AfterEach
@@ -74,10 +88,114 @@ class AddressWebClientTest {
   @Test
   void getAddressesShouldReturnsServerErrorWhenServerRespondsWith5xxError() {
     mockWebTestClient.prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
         .call(() -> addressWebClient.getAddresses("customer-1"))
         .expectServerError();
   }
 
+  @Test
+  void getAddressesShouldDecodeNdjsonWhenEnabled() {
+    AddressWebClient ndjsonClient = new AddressWebClient(WebClient.builder(),
+        AddressProperties.builder()
+            .url(mockWebTestClient.getMockServerUrl())
+            .pathAddresses(ADDRESSES_PATH)
+            .ndjsonEnabled(true)
+            .build(),
+        new SimpleMeterRegistry());
+
+    mockWebTestClient
+        .prepareRawMockResponseWith(HttpStatus.OK,
+            "{\"id\":\"address-1\"}\n{\"id\":\"address-2\"}\n",
+            Collections.singletonMap(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+        .call(() -> ndjsonClient.getAddresses("customer-1"))
+        .expectResponseList(new Address[]{
+            Address.builder().id("address-1").build(),
+            Address.builder().id("address-2").build()})
+        .takeRequest()
+        .expectHeader(HttpHeaders.ACCEPT, "application/x-ndjson, application/json");
+  }
+
+  @Test
+  void getAddressesShouldFailWhenResponseExceedsMaxResponseSize() {
+    AddressWebClient limitedClient = new AddressWebClient(WebClient.builder(),
+        AddressProperties.builder()
+            .url(mockWebTestClient.getMockServerUrl())
+            .pathAddresses(ADDRESSES_PATH)
+            .maxResponseSize(DataSize.ofBytes(64))
+            .build(),
+        new SimpleMeterRegistry());
+
+    List<Address> addressList = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      addressList.add(Address.builder().id("address-" + i).build());
+    }
+
+    mockWebTestClient
+        .prepareMockResponseWith(HttpStatus.OK, addressList,
+            Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON));
+
+    StepVerifier.create(limitedClient.getAddresses("customer-1"))
+        .expectError(DataBufferLimitException.class)
+        .verify();
+  }
+
+  @Test
+  void getAddressesShouldReuseKeptAddressListWhenServerRespondsWithNotModified() {
+    final Map<String, String> headers = new HashMap<>();
+    headers.put(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON);
+    headers.put(HttpHeaders.ETAG, "\"v1\"");
+
+    final String customerId = "customer-5";
+
+    List<Address> addressList = Arrays.asList(
+        Address.builder().id("address-1").build(),
+        Address.builder().id("address-2").build()
+    );
+
+    mockWebTestClient
+        .prepareMockResponseWith(HttpStatus.OK, addressList, headers)
+        .prepareMockResponseWith(HttpStatus.NOT_MODIFIED)
+        .call(() -> addressWebClient.getAddresses(customerId))
+        .expectResponseList(addressList.toArray())
+        .call(() -> addressWebClient.getAddresses(customerId))
+        .expectResponseList(addressList.toArray())
+        .takeRequest()
+        .expectHeader(HttpHeaders.IF_NONE_MATCH, null);
+
+    mockWebTestClient.takeRequest()
+        .expectHeader(HttpHeaders.IF_NONE_MATCH, "\"v1\"");
+  }
+
+  @Test
+  void getAddressPageShouldPassLimitAndCursorAndReadNextCursor() {
+    final Map<String, String> headers = new HashMap<>();
+    headers.put(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON);
+    headers.put(Page.NEXT_CURSOR_HEADER, "c2");
+
+    final String customerId = "customer-6";
+
+    List<Address> addressList = Arrays.asList(
+        Address.builder().id("address-1").build(),
+        Address.builder().id("address-2").build()
+    );
+
+    mockWebTestClient.prepareMockResponseWith(HttpStatus.OK, addressList, headers);
+
+    StepVerifier.create(addressWebClient.getAddressPage(customerId, 2, "c1")
+        .flatMap(page -> page.getItems().collectList()
+            .map(items -> Tuples.of(page.getNextCursor(), items))))
+        .assertNext(page -> {
+          assertThat(page.getT1(), is("c2"));
+          assertThat(page.getT2(), is(addressList));
+        })
+        .verifyComplete();
+
+    mockWebTestClient.takeRequest()
+        .expectMethod(HttpMethod.GET.name())
+        .expectPath(ADDRESSES_PATH.replace("{customerId}", customerId) + "?limit=2&cursor=c1");
+  }
+
   @Test
   void getAddressShouldRequestCorrectPathAndRetrieveAddress() {
     final Map<String, String> headers = Collections
@@ -114,6 +232,8 @@ class AddressWebClientTest {
   @Test
   void getAddressShouldReturnsServerErrorWhenServerRespondsWith5xxError() {
     mockWebTestClient.prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
         .call(() -> addressWebClient.getAddress("customer-1", "address-3"))
         .expectServerError();
   }
@@ -165,6 +285,31 @@ class AddressWebClientTest {
   }
 
 
+  @Test
+  void createAddressesShouldPostAddressBatch() {
+    final Map<String, String> headers = Collections
+        .singletonMap(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON);
+
+    List<Address> addressRequest = Arrays.asList(
+        Address.builder().customerId("customer-1").postCode("PC1 1AA").build(),
+        Address.builder().customerId("customer-1").postCode("PC1 1AB").build()
+    );
+
+    List<Address> addressResponse = Arrays.asList(
+        addressRequest.get(0).toBuilder().id("address-1").build(),
+        addressRequest.get(1).toBuilder().id("address-2").build()
+    );
+
+    mockWebTestClient
+        .prepareMockResponseWith(HttpStatus.CREATED, addressResponse, headers)
+        .call(() -> addressWebClient.createAddresses(addressRequest))
+        .expectResponseList(addressResponse.toArray())
+        .takeRequest()
+        .expectHeader(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON)
+        .expectMethod(HttpMethod.POST.name())
+        .expectPath(ADDRESSES_BATCH_PATH.replace("{customerId}", "customer-1"));
+  }
+
   @Test
   void deleteAddressShouldDeleteRequestedAddress() {
 
@@ -194,6 +339,8 @@ class AddressWebClientTest {
   @Test
   void deleteAddressShouldReturnsServerErrorWhenServerRespondsWith5xxError() {
     mockWebTestClient.prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
         .call(() -> addressWebClient.deleteAddress("customer-1", "address-3"))
         .expectServerError();
   }
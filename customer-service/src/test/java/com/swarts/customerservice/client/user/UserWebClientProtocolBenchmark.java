@@ -0,0 +1,151 @@
+package com.swarts.customerservice.client.user;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swarts.customerservice.client.ConcurrencyLimitProperties;
+import com.swarts.customerservice.client.ConnectionPoolProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+
+/**
+ * Compares HTTP/1.1 and HTTP/2 cleartext transports of the user client at a high number of
+ * concurrent requests against a stub user-service that adds a fixed latency to every response.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class UserWebClientProtocolBenchmark {
+
+  private static final int CONCURRENT_REQUESTS = 1_000;
+  private static final long SERVER_LATENCY_MILLIS = 20;
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void compareHttp11AndH2c() throws IOException {
+    // warm up connections and code paths before measuring
+    run(HttpProtocol.HTTP11, Protocol.HTTP_1_1);
+    run(HttpProtocol.H2C, Protocol.H2_PRIOR_KNOWLEDGE);
+
+    Result http11 = run(HttpProtocol.HTTP11, Protocol.HTTP_1_1);
+    Result h2c = run(HttpProtocol.H2C, Protocol.H2_PRIOR_KNOWLEDGE);
+
+    System.out.printf("getUser x %d concurrent requests, %d ms server latency%n",
+        CONCURRENT_REQUESTS, SERVER_LATENCY_MILLIS);
+    System.out.printf("  HTTP/1.1: %s%n", http11);
+    System.out.printf("  h2c:      %s%n", h2c);
+  }
+
+  private Result run(HttpProtocol protocol, Protocol serverProtocol) throws IOException {
+    StubUserService stub = new StubUserService();
+    MockWebServer server = new MockWebServer();
+    server.setProtocols(Collections.singletonList(serverProtocol));
+    server.setDispatcher(stub);
+    server.start();
+
+    try {
+      UserProperties userProperties = UserProperties.builder()
+          .url(server.url("").toString())
+          .pathUser("/users/{userId}")
+          .timeout(Duration.ofSeconds(30))
+          .protocol(protocol)
+          .concurrencyLimit(ConcurrencyLimitProperties.builder().enabled(false).build())
+          .pool(ConnectionPoolProperties.builder()
+              .maxConnections(protocol == HttpProtocol.H2C ? 10 : CONCURRENT_REQUESTS)
+              .pendingAcquireMaxCount(CONCURRENT_REQUESTS)
+              .build())
+          .build();
+      UserWebClient userWebClient = new UserWebClient(WebClient.builder(), userProperties,
+          new SimpleMeterRegistry());
+
+      long start = System.nanoTime();
+      List<Long> latencies = Flux.range(0, CONCURRENT_REQUESTS)
+          .flatMap(i -> timed(userWebClient.getUser("user-" + i)), CONCURRENT_REQUESTS)
+          .collectSortedList()
+          .block(Duration.ofMinutes(2));
+      long elapsed = System.nanoTime() - start;
+
+      assertThat(latencies.size(), is(CONCURRENT_REQUESTS));
+      return new Result(stub.connections.get(), latencies, elapsed);
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  private static Mono<Long> timed(Mono<User> call) {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return call.map(user -> System.nanoTime() - start);
+    });
+  }
+
+  private static class Result {
+
+    private final int connections;
+    private final List<Long> latencies;
+    private final long elapsed;
+
+    private Result(int connections, List<Long> latencies, long elapsed) {
+      this.connections = connections;
+      this.latencies = latencies;
+      this.elapsed = elapsed;
+    }
+
+    private double percentileMillis(double percentile) {
+      int index = (int) Math.ceil(percentile * latencies.size()) - 1;
+      return latencies.get(Math.max(0, index)) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d connections, p50 %.1f ms, p99 %.1f ms, total %d ms",
+          connections, percentileMillis(0.5), percentileMillis(0.99),
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+  }
+
+  private static class StubUserService extends Dispatcher {
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      if (request.getSequenceNumber() == 0) {
+        connections.incrementAndGet();
+      }
+      String userId = request.getPath().substring(request.getPath().lastIndexOf('/') + 1);
+      return new MockResponse()
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(toJson(User.builder().id(userId).build()))
+          .setHeadersDelay(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static String toJson(Object value) {
+      try {
+        return objectMapper.writeValueAsString(value);
+      } catch (JsonProcessingException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
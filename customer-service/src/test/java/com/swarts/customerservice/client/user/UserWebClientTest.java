@@ -1,9 +1,18 @@
 package com.swarts.customerservice.client.user;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.swarts.customerservice.client.BatchProperties;
+import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.Deadline;
+import com.swarts.customerservice.client.DeadlineExceededException;
 import com.swarts.spring.reactive.testkit.MockWebServerKit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,11 +22,15 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 
 class UserWebClientTest {
 
   private static final String USERS_PATH = "/users";
   private static final String USER_PATH = "/users/{userId}";
+  private static final String USERS_BATCH_PATH = "/users/batch";
 
   private UserWebClient userWebClient;
   private MockWebServerKit mockWebTestClient;
@@ -32,7 +45,7 @@ class UserWebClientTest {
         .pathUser(USER_PATH)
         .build();
 
-    userWebClient = new UserWebClient(WebClient.builder(), userProperties);
+    userWebClient = new UserWebClient(WebClient.builder(), userProperties, new SimpleMeterRegistry());
   }
 
   @AfterEach
@@ -73,6 +86,8 @@ class UserWebClientTest {
   @Test
   void getUserShouldReturnsServerErrorWhenServerRespondsWith5xxError() {
     mockWebTestClient.prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
+        .prepareMockResponseWith(HttpStatus.INTERNAL_SERVER_ERROR)
         .call(() -> userWebClient.getUser("user-3"))
         .expectServerError();
   }
@@ -118,4 +133,93 @@ class UserWebClientTest {
         .expectServerError();
   }
 
-}
\ No newline at end of file
+  @Test
+  void getUserShouldRetryWhenServerRespondsWith5xxError() {
+    final Map<String, String> headers = Collections
+        .singletonMap(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON);
+
+    User userResponse = User.builder()
+        .id("user-4")
+        .build();
+
+    mockWebTestClient.prepareMockResponseWith(HttpStatus.SERVICE_UNAVAILABLE)
+        .prepareMockResponseWith(HttpStatus.OK, userResponse, headers)
+        .call(() -> userWebClient.getUser("user-4"))
+        .expectResponse(userResponse);
+  }
+
+  @Test
+  void getUserShouldReuseKeptUserWhenServerRespondsWithNotModified() {
+    final Map<String, String> headers = new HashMap<>();
+    headers.put(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON);
+    headers.put(HttpHeaders.ETAG, "\"v1\"");
+
+    User userResponse = User.builder()
+        .id("user-5")
+        .build();
+
+    mockWebTestClient
+        .prepareMockResponseWith(HttpStatus.OK, userResponse, headers)
+        .prepareMockResponseWith(HttpStatus.NOT_MODIFIED)
+        .call(() -> userWebClient.getUser("user-5"))
+        .expectResponse(userResponse)
+        .call(() -> userWebClient.getUser("user-5"))
+        .expectResponse(userResponse)
+        .takeRequest()
+        .expectHeader(HttpHeaders.IF_NONE_MATCH, null);
+
+    mockWebTestClient.takeRequest()
+        .expectHeader(HttpHeaders.IF_NONE_MATCH, "\"v1\"");
+  }
+
+  @Test
+  void getUserShouldBatchConcurrentReadsWhenBatchingIsEnabled() {
+    UserProperties userProperties = UserProperties.builder()
+        .url(mockWebTestClient.getMockServerUrl())
+        .pathUser(USER_PATH)
+        .pathUsersBatch(USERS_BATCH_PATH)
+        .batch(BatchProperties.builder().enabled(true).window(Duration.ofMillis(50)).build())
+        .build();
+    userWebClient = new UserWebClient(WebClient.builder(), userProperties, new SimpleMeterRegistry());
+
+    final Map<String, String> headers = Collections
+        .singletonMap(HttpHeaders.CONTENT_TYPE, MediaTypes.APPLICATION_JSON);
+
+    User userResponse = User.builder()
+        .id("user-1")
+        .build();
+
+    mockWebTestClient
+        .prepareMockResponseWith(HttpStatus.OK, Collections.singletonList(userResponse), headers)
+        .call(() -> Mono.zip(
+            userWebClient.getUser("user-1"),
+            userWebClient.getUser("user-2")
+                .map(User::getId)
+                .onErrorResume(ClientException::isClientError, e -> Mono.just("not found"))))
+        .expectResponse(Tuples.of(userResponse, "not found"))
+        .takeRequest()
+        .expectMethod(HttpMethod.GET.name())
+        .expectPath(USERS_BATCH_PATH + "?ids=user-1,user-2");
+  }
+
+  @Test
+  void getUserShouldFailFastWhenRequestDeadlineIsExpired() {
+    StepVerifier.create(userWebClient.getUser("user-1")
+        .subscriberContext(Deadline.attach(Duration.ZERO)))
+        .expectError(DeadlineExceededException.class)
+        .verify();
+  }
+
+
+  @Test
+  void shouldRequireBatchPathWhenBatchingIsEnabled() {
+    UserProperties userProperties = UserProperties.builder()
+        .url(mockWebTestClient.getMockServerUrl())
+        .pathUser(USER_PATH)
+        .batch(BatchProperties.builder().enabled(true).build())
+        .build();
+
+    assertThrows(IllegalStateException.class,
+        () -> new UserWebClient(WebClient.builder(), userProperties, new SimpleMeterRegistry()));
+  }
+}
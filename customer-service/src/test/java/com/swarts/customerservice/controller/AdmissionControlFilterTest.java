@@ -0,0 +1,100 @@
+package com.swarts.customerservice.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class AdmissionControlFilterTest {
+
+  private static final WebFilterChain PENDING = exchange -> Mono.never();
+  private static final WebFilterChain COMPLETED = exchange -> Mono.empty();
+
+  private SimpleMeterRegistry meterRegistry;
+  private AdmissionControlFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    filter = new AdmissionControlFilter(AdmissionProperties.builder()
+        .maxInFlight(10)
+        .writeShare(0.5)
+        .readShare(0.8)
+        .build(), meterRegistry);
+  }
+
+  @Test
+  void filterShouldShedRequestsOverLimitWithRetryAfter() {
+    occupy(MockServerHttpRequest.get("/customers/customer-1/address/address-1"), 10);
+
+    MockServerWebExchange exchange = exchange(
+        MockServerHttpRequest.get("/customers/customer-1/address/address-1"));
+    StepVerifier.create(filter.filter(exchange, COMPLETED)).verifyComplete();
+
+    assertThat(exchange.getResponse().getStatusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+    assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER), is("1"));
+    assertThat(count("GET /customers/{customerId}/address/{addressId}", "shed"), is(1.0));
+  }
+
+  @Test
+  void filterShouldShedWritesBeforeCheapReads() {
+    occupy(MockServerHttpRequest.get("/customers/customer-1/address/address-1"), 5);
+
+    MockServerWebExchange write = exchange(MockServerHttpRequest.post("/customers"));
+    MockServerWebExchange read = exchange(MockServerHttpRequest.get("/customers/customer-1"));
+    MockServerWebExchange cheapRead = exchange(
+        MockServerHttpRequest.get("/customers/customer-1/address/address-1"));
+    StepVerifier.create(filter.filter(write, COMPLETED)).verifyComplete();
+    StepVerifier.create(filter.filter(read, COMPLETED)).verifyComplete();
+    StepVerifier.create(filter.filter(cheapRead, COMPLETED)).verifyComplete();
+
+    assertThat(write.getResponse().getStatusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+    assertThat(read.getResponse().getStatusCode(), is((HttpStatus) null));
+    assertThat(cheapRead.getResponse().getStatusCode(), is((HttpStatus) null));
+    assertThat(count("POST /customers", "shed"), is(1.0));
+    assertThat(count("GET /customers/{customerId}", "admitted"), is(1.0));
+  }
+
+  @Test
+  void filterShouldReleaseSlotWhenRequestCompletes() {
+    for (int i = 0; i < 20; i++) {
+      MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/customers"));
+      StepVerifier.create(filter.filter(exchange, COMPLETED)).verifyComplete();
+      assertThat(exchange.getResponse().getStatusCode(), is((HttpStatus) null));
+    }
+  }
+
+  @Test
+  void filterShouldNotLimitUnknownRoutes() {
+    occupy(MockServerHttpRequest.get("/customers/customer-1/address/address-1"), 10);
+
+    MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/actuator/health"));
+    StepVerifier.create(filter.filter(exchange, COMPLETED)).verifyComplete();
+
+    assertThat(exchange.getResponse().getStatusCode(), is((HttpStatus) null));
+  }
+
+  private void occupy(MockServerHttpRequest.BaseBuilder<?> request, int count) {
+    for (int i = 0; i < count; i++) {
+      filter.filter(exchange(request), PENDING).subscribe();
+    }
+  }
+
+  private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+    return MockServerWebExchange.from(request.build());
+  }
+
+  private double count(String route, String result) {
+    return meterRegistry.counter("http.server.admission", "route", route, "result", result)
+        .count();
+  }
+}
@@ -1,26 +1,55 @@
 package com.swarts.customerservice.controller;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swarts.customerservice.client.ClientCodecs;
+import com.swarts.customerservice.client.Page;
 import com.swarts.customerservice.data.DataProvider;
+import com.swarts.customerservice.exception.ApplicationException;
+import com.swarts.customerservice.exception.ErrorCode;
 import com.swarts.customerservice.model.Customer;
 import com.swarts.customerservice.model.CustomerAddress;
+import com.swarts.customerservice.model.CustomerBatchRequest;
+import com.swarts.customerservice.model.CustomerBatchResult;
+import com.swarts.customerservice.service.CustomerProperties;
 import com.swarts.customerservice.service.CustomerService;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
 
 @ExtendWith(SpringExtension.class)
 class CustomerControllerTest {
 
   private static final String CUSTOMERS_PATH = "/customers";
   private static final String CUSTOMER_PATH = "/customers/{collectionId}";
+  private static final String BATCH_GET_PATH = "/customers/_batch-get";
+  private static final String BULK_IMPORT_PATH = "/customers/_bulk-import";
   private static final String ADDRESSES_PATH = "/customers/{collectionId}/address";
   private static final String ADDRESS_PATH = "/customers/{collectionId}/address/{addressId}";
 
@@ -33,7 +62,11 @@ class CustomerControllerTest {
     customerService = mock(CustomerService.class);
 
     webTestClient = WebTestClient
-        .bindToController(new CustomerController(customerService))
+        .bindToController(new CustomerController(customerService, CustomerProperties.builder().build(),
+            new ObjectMapper()))
+        .httpMessageCodecs(configurer -> NdjsonCodecConfig.configure(configurer, new ObjectMapper()))
+        .configureClient()
+        .codecs(ClientCodecs.streamingJson(DataSize.ofKilobytes(256)))
         .build();
   }
 
@@ -42,7 +75,14 @@ class CustomerControllerTest {
     Customer customerRequest = DataProvider.customerRequest();
     Customer customerResponse = DataProvider.customerResponse();
 
-    when(customerService.addCustomer(customerRequest)).thenReturn(Mono.just(customerResponse));
+    when(customerService.addCustomer(any(Mono.class), any(Flux.class))).thenAnswer(invocation -> {
+      Mono<Customer> customer = invocation.getArgument(0);
+      Flux<CustomerAddress> addressList = invocation.getArgument(1);
+      return customer.zipWith(addressList.collectList())
+          .filter(tuple -> tuple.getT1().equals(customerRequest.toBuilder().addressList(null).build())
+              && tuple.getT2().equals(customerRequest.getAddressList()))
+          .map(tuple -> customerResponse);
+    });
 
     webTestClient.post()
         .uri(CUSTOMERS_PATH)
@@ -56,6 +96,44 @@ class CustomerControllerTest {
         .jsonPath("$.id").isEqualTo(customerResponse.getId());
   }
 
+  @Test
+  void addCustomerShouldCreateUserBeforeLastAddressArrives() throws JsonProcessingException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    Customer customerRequest = DataProvider.customerRequest();
+    Customer customerResponse = DataProvider.customerResponse();
+    String json = objectMapper.writeValueAsString(customerRequest);
+    int lastAddress = json.lastIndexOf('{');
+    DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+    MonoProcessor<Customer> userCreation = MonoProcessor.create();
+
+    when(customerService.addCustomer(any(Mono.class), any(Flux.class))).thenAnswer(invocation -> {
+      Mono<Customer> customer = invocation.getArgument(0);
+      Flux<CustomerAddress> addressList = invocation.getArgument(1);
+      return customer.doOnNext(userCreation::onNext)
+          .zipWith(addressList.collectList())
+          .map(tuple -> customerResponse);
+    });
+
+    // the last address is only sent once the user is being created
+    Flux<DataBuffer> body = Flux.concat(
+        Mono.fromCallable(() -> bufferFactory.wrap(
+            json.substring(0, lastAddress).getBytes(StandardCharsets.UTF_8))),
+        userCreation.timeout(Duration.ofSeconds(5))
+            .map(customer -> bufferFactory.wrap(
+                json.substring(lastAddress).getBytes(StandardCharsets.UTF_8))));
+
+    webTestClient.post()
+        .uri(CUSTOMERS_PATH)
+        .accept(MediaType.APPLICATION_JSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(body, DataBuffer.class)
+        .exchange()
+        .expectStatus()
+        .isCreated();
+
+    assertThat(userCreation.peek(), is(customerRequest.toBuilder().addressList(null).build()));
+  }
+
   @Test
   void shouldGetCustomer() {
     String customerId = "customer-1";
@@ -73,6 +151,236 @@ class CustomerControllerTest {
         .jsonPath("$.id").isEqualTo(customerId);
   }
 
+  @Test
+  void getCustomerShouldRejectUnknownField() {
+    webTestClient.get()
+        .uri(uriBuilder -> uriBuilder.path(CUSTOMER_PATH).queryParam("fields", "id,password")
+            .build("customer-1"))
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void getCustomerShouldReturnNotModifiedWhenETagMatches() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse();
+
+    when(customerService.getCustomer(customerId)).thenReturn(Mono.just(customer));
+
+    String etag = webTestClient.get()
+        .uri(CUSTOMER_PATH, customerId)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(Customer.class)
+        .getResponseHeaders()
+        .getETag();
+
+    webTestClient.get()
+        .uri(CUSTOMER_PATH, customerId)
+        .accept(MediaType.APPLICATION_JSON)
+        .ifNoneMatch(etag)
+        .exchange()
+        .expectStatus()
+        .isNotModified()
+        .expectHeader()
+        .valueEquals(HttpHeaders.ETAG, etag)
+        .expectBody()
+        .isEmpty();
+  }
+
+  @Test
+  void getCustomerShouldMarkPartialResponseWhenAddressesAreLeftOut() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse().toBuilder()
+        .addressList(null)
+        .build();
+
+    when(customerService.getCustomer(eq(customerId), any(Duration.class)))
+        .thenReturn(Mono.just(customer));
+
+    webTestClient.get()
+        .uri(uriBuilder -> uriBuilder.path(CUSTOMER_PATH).queryParam("partial", true).build(customerId))
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(CustomerController.PARTIAL_RESPONSE_HEADER, "addressList")
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(customerId)
+        .jsonPath("$.addressList").doesNotExist();
+  }
+
+  @Test
+  void getCustomerShouldReturnOnlyRequestedFields() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse().toBuilder()
+        .addressList(null)
+        .build();
+
+    when(customerService.getCustomerWithoutAddresses(customerId)).thenReturn(Mono.just(customer));
+
+    webTestClient.get()
+        .uri(uriBuilder -> uriBuilder.path(CUSTOMER_PATH).queryParam("fields", "id,email").build(customerId))
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(customerId)
+        .jsonPath("$.email").isEqualTo(customer.getEmail())
+        .jsonPath("$.firstName").doesNotExist()
+        .jsonPath("$.addressList").doesNotExist();
+  }
+
+  @Test
+  void getCustomerShouldKeepNullFieldsOfFullCustomer() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse().toBuilder()
+        .email(null)
+        .build();
+
+    when(customerService.getCustomer(customerId)).thenReturn(Mono.just(customer));
+
+    webTestClient.get()
+        .uri(CUSTOMER_PATH, customerId)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.email").value(email -> assertThat(email == null, is(true)))
+        .jsonPath("$.addressList").isNotEmpty();
+  }
+
+  @Test
+  void shouldStreamBatchResultsAsNdjson() {
+    Customer customer = DataProvider.customerResponse();
+    List<String> ids = Arrays.asList("customer-1", "customer-2");
+
+    when(customerService.getCustomers(eq(ids), anyInt(), any(Duration.class)))
+        .thenReturn(Flux.just(
+            CustomerBatchResult.succeeded("customer-1", customer),
+            CustomerBatchResult.failed("customer-2", ErrorCode.CUSTOMER_NOT_FOUND)));
+
+    List<CustomerBatchResult> results = webTestClient.post()
+        .uri(BATCH_GET_PATH)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(CustomerBatchRequest.builder().ids(ids).build())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .contentTypeCompatibleWith(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .returnResult(CustomerBatchResult.class)
+        .getResponseBody()
+        .collectList()
+        .block();
+
+    assertThat(results, is(Arrays.asList(
+        CustomerBatchResult.succeeded("customer-1", customer),
+        CustomerBatchResult.failed("customer-2", ErrorCode.CUSTOMER_NOT_FOUND))));
+  }
+
+  @Test
+  void getCustomersShouldRejectEmptyBatch() {
+    webTestClient.post()
+        .uri(BATCH_GET_PATH)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(CustomerBatchRequest.builder().ids(Collections.emptyList()).build())
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void getCustomersShouldRejectBatchOverMaxSize() {
+    List<String> ids = Collections.nCopies(CustomerProperties.builder().build().getBatchMaxSize() + 1,
+        "customer-1");
+
+    webTestClient.post()
+        .uri(BATCH_GET_PATH)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(CustomerBatchRequest.builder().ids(ids).build())
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldImportCustomersFromNdjson() throws JsonProcessingException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    Customer customerRequest = DataProvider.customerRequest();
+    Customer customerResponse = DataProvider.customerResponse();
+    CustomerBatchResult result = CustomerBatchResult.succeeded(customerResponse.getId(), customerResponse)
+        .toBuilder()
+        .index(0L)
+        .build();
+
+    ArgumentCaptor<Flux<Mono<Customer>>> records = ArgumentCaptor.forClass(Flux.class);
+    when(customerService.importCustomers(records.capture(), anyInt(), any(Duration.class)))
+        .thenAnswer(invocation -> records.getValue()
+            .concatMap(record -> record.map(customer -> result)));
+
+    String body = objectMapper.writeValueAsString(customerRequest) + "\n"
+        + objectMapper.writeValueAsString(customerRequest) + "\n";
+
+    List<CustomerBatchResult> results = webTestClient.post()
+        .uri(BULK_IMPORT_PATH)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .contentType(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .bodyValue(body)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(CustomerBatchResult.class)
+        .getResponseBody()
+        .collectList()
+        .block();
+
+    assertThat(results, is(Arrays.asList(result, result)));
+  }
+
+  @Test
+  void shouldImportCustomersPastMalformedLine() throws JsonProcessingException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    Customer customerResponse = DataProvider.customerResponse();
+    CustomerBatchResult result = CustomerBatchResult.succeeded(customerResponse.getId(), customerResponse);
+
+    ArgumentCaptor<Flux<Mono<Customer>>> records = ArgumentCaptor.forClass(Flux.class);
+    when(customerService.importCustomers(records.capture(), anyInt(), any(Duration.class)))
+        .thenAnswer(invocation -> records.getValue()
+            .concatMap(record -> record.map(customer -> result)
+                .onErrorResume(ApplicationException.class,
+                    e -> Mono.just(CustomerBatchResult.failed(null, e.getErrorCode())))));
+
+    String body = "{\"firstName\":\n"
+        + objectMapper.writeValueAsString(DataProvider.customerRequest()) + "\n";
+
+    List<CustomerBatchResult> results = webTestClient.post()
+        .uri(BULK_IMPORT_PATH)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .contentType(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .bodyValue(body)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(CustomerBatchResult.class)
+        .getResponseBody()
+        .collectList()
+        .block();
+
+    assertThat(results, is(Arrays.asList(
+        CustomerBatchResult.failed(null, ErrorCode.CUSTOMER_IMPORT_RECORD_INVALID), result)));
+  }
+
   @Test
   void shouldAddAddress() {
     String customerId = "customer-1";
@@ -112,6 +420,97 @@ class CustomerControllerTest {
         .jsonPath("$.[0].customerId").isEqualTo(customerId);
   }
 
+  @Test
+  void getAddressListShouldStreamNdjsonWithoutETag() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse();
+    CustomerAddress first = customer.getAddressList().get(0);
+
+    when(customerService.getCustomerAddressList(customerId))
+        .thenReturn(Flux.concat(Flux.just(first), Flux.never()));
+
+    FluxExchangeResult<CustomerAddress> result = webTestClient.get()
+        .uri(ADDRESSES_PATH, customerId)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .returnResult(CustomerAddress.class);
+
+    assertThat(result.getResponseHeaders().getETag() == null, is(true));
+    StepVerifier.create(result.getResponseBody())
+        .expectNext(first)
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  void getAddressListShouldReturnBodyWhenETagDoesNotMatch() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse();
+
+    when(customerService.getCustomerAddressList(customerId))
+        .thenReturn(Flux.fromIterable(customer.getAddressList()));
+
+    webTestClient.get()
+        .uri(ADDRESSES_PATH, customerId)
+        .accept(MediaType.APPLICATION_JSON)
+        .ifNoneMatch("W/\"outdated\"")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .exists(HttpHeaders.ETAG)
+        .expectBody()
+        .jsonPath("$.[0].customerId").isEqualTo(customerId);
+  }
+
+  @Test
+  void shouldGetAddressPage() {
+    String customerId = "customer-1";
+    Customer customer = DataProvider.customerResponse();
+
+    when(customerService.getCustomerAddressPage(customerId, 1, "0"))
+        .thenReturn(Mono.just(new Page<>(Flux.just(customer.getAddressList().get(0)), "1")));
+
+    webTestClient.get()
+        .uri(ADDRESSES_PATH + "?limit=1&cursor=0", customerId)
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(Page.NEXT_CURSOR_HEADER, "1")
+        .returnResult(CustomerAddress.class)
+        .getResponseBody()
+        .as(StepVerifier::create)
+        .expectNext(customer.getAddressList().get(0))
+        .verifyComplete();
+  }
+
+  @Test
+  void getAddressPageShouldRejectInvalidLimit() {
+    webTestClient.get()
+        .uri(ADDRESSES_PATH + "?limit=0", "customer-1")
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void getAddressPageShouldRejectInvalidCursor() {
+    when(customerService.getCustomerAddressPage("customer-1", 1, "-1"))
+        .thenReturn(Mono.error(new ApplicationException(ErrorCode.PAGE_INVALID)));
+
+    webTestClient.get()
+        .uri(ADDRESSES_PATH + "?limit=1&cursor=-1", "customer-1")
+        .accept(NdjsonCodecConfig.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
   @Test
   void shouldGetAddress() {
     String customerId = "customer-1";
@@ -0,0 +1,156 @@
+package com.swarts.customerservice.controller;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swarts.customerservice.data.DataProvider;
+import com.swarts.customerservice.model.Customer;
+import com.swarts.customerservice.model.CustomerAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+class CustomerRequestReaderTest {
+
+  private static final int MAX_IN_MEMORY_SIZE = 256;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @Test
+  void shouldEmitCustomerFieldsAndThenEachAddress() throws Exception {
+    CustomerAddress second = DataProvider.customerAddressRequest().toBuilder()
+        .postCode("PC1 1AB")
+        .build();
+    Customer customerRequest = DataProvider.customerRequest().toBuilder()
+        .addressList(Arrays.asList(DataProvider.customerAddressRequest(), second))
+        .build();
+
+    StepVerifier.create(read(chunks(
+            objectMapper.writeValueAsString(customerRequest), 7)))
+        .expectNext(customerRequest.toBuilder().addressList(null).build())
+        .expectNext(DataProvider.customerAddressRequest())
+        .expectNext(second)
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldEmitCustomerWhenAddressListIsMissing() {
+    StepVerifier.create(read(chunks(
+            "{\"firstName\":\"Maria\",\"address\":{\"nested\":[1,2]}}", 3)))
+        .expectNext(Customer.builder().firstName("Maria").build())
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldEmitCustomerWhenAddressListIsNull() {
+    StepVerifier.create(read(chunks(
+            "{\"firstName\":\"Maria\",\"addressList\":null}", 5)))
+        .expectNext(Customer.builder().firstName("Maria").build())
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldReadFieldsAfterAddressList() {
+    StepVerifier.create(read(chunks(
+            "{\"lastName\":\"Jansen\",\"addressList\":[{\"city\":\"Utrecht\"}],"
+                + "\"firstName\":\"Maria\"}", 4)))
+        .expectNext(CustomerAddress.builder().city("Utrecht").build())
+        .expectNext(Customer.builder().firstName("Maria").lastName("Jansen").build())
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldEmitCustomerBeforeAddressListArrives() {
+    TestPublisher<DataBuffer> body = TestPublisher.create();
+
+    StepVerifier.create(read(body.flux()))
+        .then(() -> body.next(buffer(
+            "{\"firstName\":\"Maria\",\"lastName\":\"Jansen\",\"email\":\"m@example.com\","
+                + "\"addressList\":[")))
+        .expectNext(Customer.builder().firstName("Maria").lastName("Jansen")
+            .email("m@example.com").build())
+        .then(() -> body.next(buffer("{\"city\":\"Utrecht\"}],\"note\":\"skipped\"}")))
+        .expectNext(CustomerAddress.builder().city("Utrecht").build())
+        .then(body::complete)
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldRejectCustomerFieldAfterAddressListOfCompleteCustomer() {
+    StepVerifier.create(read(chunks(
+            "{\"firstName\":\"Maria\",\"lastName\":\"Jansen\",\"email\":\"m@example.com\","
+                + "\"addressList\":[],\"id\":\"customer-1\"}", 64)))
+        .expectNextCount(1)
+        .expectErrorSatisfies(e -> assertThat(e, instanceOf(ServerWebInputException.class)))
+        .verify();
+  }
+
+  @Test
+  void shouldRejectDuplicateAddressList() {
+    StepVerifier.create(read(chunks(
+            "{\"addressList\":[],\"addressList\":[]}", 64)))
+        .expectErrorSatisfies(e -> assertThat(e, instanceOf(ServerWebInputException.class)))
+        .verify();
+  }
+
+  @Test
+  void shouldRejectIncompleteRequest() {
+    StepVerifier.create(read(chunks(
+            "{\"firstName\":\"Maria\",\"addressList\":[{\"city\":", 64)))
+        .expectErrorSatisfies(e -> assertThat(e, instanceOf(ServerWebInputException.class)))
+        .verify();
+  }
+
+  @Test
+  void shouldRejectPartOverMaxInMemorySize() {
+    String city = String.join("", Collections.nCopies(MAX_IN_MEMORY_SIZE, "a"));
+
+    StepVerifier.create(read(chunks(
+            "{\"addressList\":[{\"city\":\"" + city + "\"}]}", 64)))
+        .expectErrorSatisfies(e -> {
+          assertThat(e, instanceOf(ResponseStatusException.class));
+          assertThat(((ResponseStatusException) e).getStatus(), is(HttpStatus.PAYLOAD_TOO_LARGE));
+        })
+        .verify();
+  }
+
+  @Test
+  void shouldAcceptAddressesTogetherOverMaxInMemorySize() {
+    String city = String.join("", Collections.nCopies(MAX_IN_MEMORY_SIZE / 2, "a"));
+    String address = "{\"city\":\"" + city + "\"}";
+
+    StepVerifier.create(read(chunks(
+            "{\"addressList\":[" + address + "," + address + "," + address + "]}", 16)))
+        .expectNextCount(4)
+        .verifyComplete();
+  }
+
+  private Flux<Object> read(Flux<DataBuffer> body) {
+    return CustomerRequestReader.read(body, objectMapper, MAX_IN_MEMORY_SIZE);
+  }
+
+  private static DataBuffer buffer(String json) {
+    return new DefaultDataBufferFactory().wrap(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Flux<DataBuffer> chunks(String json, int size) {
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+    DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+    return Flux.range(0, (bytes.length + size - 1) / size)
+        .map(i -> factory.wrap(Arrays.copyOfRange(bytes, i * size,
+            Math.min(bytes.length, (i + 1) * size))));
+  }
+}
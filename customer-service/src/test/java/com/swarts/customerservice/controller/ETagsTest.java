@@ -0,0 +1,36 @@
+package com.swarts.customerservice.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swarts.customerservice.data.DataProvider;
+import com.swarts.customerservice.model.Customer;
+import org.junit.jupiter.api.Test;
+
+class ETagsTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void weakShouldTagEqualBodiesAlike() {
+    assertThat(ETags.weak(objectMapper, DataProvider.customerResponse()),
+        is(ETags.weak(objectMapper, DataProvider.customerResponse())));
+  }
+
+  @Test
+  void weakShouldTagChangedBodiesDifferently() {
+    Customer customer = DataProvider.customerResponse();
+    Customer changed = customer.toBuilder().email("changed@example.com").build();
+
+    assertThat(ETags.weak(objectMapper, changed), not(ETags.weak(objectMapper, customer)));
+  }
+
+  @Test
+  void weakShouldReturnWeakQuotedTag() {
+    String etag = ETags.weak(objectMapper, DataProvider.customerResponse());
+
+    assertThat(etag.startsWith("W/\"") && etag.endsWith("\""), is(true));
+  }
+}
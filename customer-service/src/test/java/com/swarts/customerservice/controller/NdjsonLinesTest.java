@@ -0,0 +1,56 @@
+package com.swarts.customerservice.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.swarts.customerservice.exception.ApplicationException;
+import com.swarts.customerservice.exception.ErrorCode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class NdjsonLinesTest {
+
+  @Test
+  void shouldSplitLinesAcrossBuffersAndSkipBlankLines() {
+    StepVerifier.create(NdjsonLines.split(chunks("{\"a\":1}\n\n{\"b\":2}\n{\"c\":3}", 3), 16)
+            .concatMap(line -> line))
+        .expectNext("{\"a\":1}", "{\"b\":2}", "{\"c\":3}")
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldReportLineOverMaxSizeAndReadTheLinesAfterIt() {
+    String body = "{\"a\":1}\n{\"name\":\"too long\"}\n{\"c\":3}\n";
+
+    StepVerifier.create(NdjsonLines.split(chunks(body, 4), 8)
+            .concatMap(line -> line.onErrorResume(ApplicationException.class,
+                e -> Mono.just(e.getErrorCode().name()))))
+        .expectNext("{\"a\":1}")
+        .expectNext(ErrorCode.CUSTOMER_IMPORT_RECORD_TOO_LARGE.name())
+        .expectNext("{\"c\":3}")
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldReportLastLineOverMaxSize() {
+    StepVerifier.create(NdjsonLines.split(chunks("{\"name\":\"too long\"}", 64), 8)
+            .concatMap(line -> line))
+        .expectErrorSatisfies(e -> assertThat(((ApplicationException) e).getErrorCode(),
+            is(ErrorCode.CUSTOMER_IMPORT_RECORD_TOO_LARGE)))
+        .verify();
+  }
+
+  private static Flux<DataBuffer> chunks(String text, int size) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+    return Flux.range(0, (bytes.length + size - 1) / size)
+        .map(i -> factory.wrap(Arrays.copyOfRange(bytes, i * size,
+            Math.min(bytes.length, (i + 1) * size))));
+  }
+}
@@ -0,0 +1,158 @@
+package com.swarts.customerservice.service;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swarts.customerservice.client.address.Address;
+import com.swarts.customerservice.client.address.AddressCacheProperties;
+import com.swarts.customerservice.client.address.AddressProperties;
+import com.swarts.customerservice.client.address.AddressWebClient;
+import com.swarts.customerservice.data.ClientDataProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Compares per-item and batched address creation against a stub address-service that adds a
+ * fixed latency to every response. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class AddAddressListBenchmark {
+
+  private static final int ADDRESS_COUNT = 2_000;
+  private static final long SERVER_LATENCY_MILLIS = 5;
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private MockWebServer server;
+  private List<Address> addressList;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = new MockWebServer();
+    server.setDispatcher(new StubAddressService());
+    server.start();
+
+    addressList = IntStream.range(0, ADDRESS_COUNT)
+        .mapToObj(i -> ClientDataProvider.addressRequest().toBuilder()
+            .postCode("PC" + i)
+            .build())
+        .collect(Collectors.toList());
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  void compareSingleAndBulkAddressCreation() {
+    AddressProperties single = properties().build();
+    AddressProperties bulk = properties().bulkEnabled(true).bulkSize(50).build();
+
+    // warm up connections and code paths before measuring
+    run(single);
+    run(bulk);
+
+    double singleThroughput = run(single);
+    double bulkThroughput = run(bulk);
+
+    System.out.printf("addAddressList of %d addresses, %d ms server latency%n",
+        ADDRESS_COUNT, SERVER_LATENCY_MILLIS);
+    System.out.printf("  per-item (concurrency %d): %.0f addresses/s%n",
+        single.getCreateConcurrency(), singleThroughput);
+    System.out.printf("  batched (size %d, concurrency %d): %.0f addresses/s%n",
+        bulk.getBulkSize(), bulk.getCreateConcurrency(), bulkThroughput);
+  }
+
+  private double run(AddressProperties addressProperties) {
+    AddressService addressService = new AddressService(
+        new AddressWebClient(WebClient.builder(), addressProperties, new SimpleMeterRegistry()),
+        addressProperties,
+        AddressCacheProperties.builder().enabled(false).build(),
+        FallbackProperties.builder().enabled(false).build(),
+        new SimpleMeterRegistry());
+
+    long start = System.nanoTime();
+    List<Address> created = addressService.addAddressList(addressList)
+        .collectList()
+        .block(Duration.ofMinutes(2));
+    long elapsed = System.nanoTime() - start;
+
+    assertThat(created.size(), is(ADDRESS_COUNT));
+    return ADDRESS_COUNT / (elapsed / 1e9);
+  }
+
+  private AddressProperties.AddressPropertiesBuilder properties() {
+    return AddressProperties.builder()
+        .url(server.url("").toString())
+        .pathAddresses("/address/{customerId}")
+        .pathAddressesBatch("/address/{customerId}/batch")
+        .timeout(Duration.ofSeconds(30));
+  }
+
+  private static class StubAddressService extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      String body = request.getBody().readUtf8();
+      String responseBody = request.getPath().endsWith("/batch")
+          ? toJson(readList(body).stream()
+              .map(StubAddressService::created)
+              .collect(Collectors.toList()))
+          : toJson(created(read(body)));
+
+      return new MockResponse()
+          .setResponseCode(201)
+          .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+          .setBody(responseBody)
+          .setHeadersDelay(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Address created(Address address) {
+      return address.toBuilder().id(UUID.randomUUID().toString()).build();
+    }
+
+    private static Address read(String json) {
+      try {
+        return objectMapper.readValue(json, Address.class);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static List<Address> readList(String json) {
+      try {
+        return objectMapper.readValue(json, new TypeReference<List<Address>>() {});
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static String toJson(Object value) {
+      try {
+        return objectMapper.writeValueAsString(value);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -1,23 +1,33 @@
 package com.swarts.customerservice.service;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.DeadlineExceededException;
 import com.swarts.customerservice.client.address.Address;
+import com.swarts.customerservice.client.address.AddressCacheProperties;
+import com.swarts.customerservice.client.address.AddressProperties;
 import com.swarts.customerservice.client.address.AddressWebClient;
 import com.swarts.customerservice.data.ClientDataProvider;
 import com.swarts.customerservice.exception.ApplicationException;
 import com.swarts.customerservice.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.core.io.buffer.DataBufferLimitException;
 import org.springframework.http.HttpStatus;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 
 class AddressServiceTest {
 
@@ -28,7 +38,9 @@ class AddressServiceTest {
   void setUp() {
     addressWebClient = Mockito.mock(AddressWebClient.class);
 
-    addressService = new AddressService(addressWebClient);
+    addressService = new AddressService(addressWebClient, AddressProperties.builder().build(),
+        AddressCacheProperties.builder().build(), FallbackProperties.builder().build(),
+        new SimpleMeterRegistry());
   }
 
   @Test
@@ -165,6 +177,19 @@ class AddressServiceTest {
         .verify();
   }
 
+  @Test
+  void getAddressListShouldReturnAddressServiceErrorWhenResponseIsTooLarge() {
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId))
+        .thenReturn(Flux.error(new DataBufferLimitException("too large")));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR)::equals)
+        .verify();
+  }
+
   @Test
   void shouldReturnAddress() {
 
@@ -248,4 +273,295 @@ class AddressServiceTest {
         .expectErrorMatches(new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR)::equals)
         .verify();
   }
-}
\ No newline at end of file
+
+  @Test
+  void getAddressListShouldReturnDeadlineExceededErrorWhenDeadlineExpires() {
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId))
+        .thenReturn(Flux.error(new DeadlineExceededException()));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.DEADLINE_EXCEEDED)::equals)
+        .verify();
+  }
+
+  @Test
+  void getAddressListShouldReturnCachedAddressList() {
+
+    Address addressResponse = ClientDataProvider.addressResponse();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId)).thenReturn(Flux.just(addressResponse));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+
+    verify(addressWebClient, times(1)).getAddresses(customerId);
+  }
+
+  @Test
+  void getAddressListShouldCacheListReadDuringWriteOfOtherCustomer() {
+    Address addressResponse = ClientDataProvider.addressResponse();
+    Address otherAddress = ClientDataProvider.addressResponse().toBuilder()
+        .customerId("customer-2")
+        .build();
+
+    when(addressWebClient.createAddress(otherAddress)).thenReturn(Mono.just(otherAddress));
+    when(addressWebClient.getAddresses("customer-1")).thenReturn(Flux.just(addressResponse)
+        .concatWith(addressService.addAddress(otherAddress).then(Mono.empty())));
+
+    StepVerifier.create(addressService.getAddressList("customer-1"))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList("customer-1"))
+        .expectNext(addressResponse)
+        .verifyComplete();
+
+    verify(addressWebClient, times(1)).getAddresses("customer-1");
+  }
+
+  @Test
+  void getAddressListShouldNotCacheListReadDuringWriteOfSameCustomer() {
+    Address addressResponse = ClientDataProvider.addressResponse();
+    Address newAddress = ClientDataProvider.addressResponse().toBuilder()
+        .id("address-2")
+        .build();
+
+    when(addressWebClient.createAddress(newAddress)).thenReturn(Mono.just(newAddress));
+    when(addressWebClient.getAddresses("customer-1")).thenReturn(Flux.just(addressResponse)
+        .concatWith(addressService.addAddress(newAddress).then(Mono.empty())));
+
+    StepVerifier.create(addressService.getAddressList("customer-1"))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList("customer-1"))
+        .expectNext(addressResponse)
+        .verifyComplete();
+
+    verify(addressWebClient, times(2)).getAddresses("customer-1");
+  }
+
+  @Test
+  void getAddressPageShouldWindowAddressListWhenPaginationIsDisabled() {
+
+    Address first = ClientDataProvider.addressResponse().toBuilder().id("address-1").build();
+    Address second = ClientDataProvider.addressResponse().toBuilder().id("address-2").build();
+    Address third = ClientDataProvider.addressResponse().toBuilder().id("address-3").build();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId)).thenReturn(Flux.just(first, second, third));
+
+    StepVerifier.create(addressService.getAddressPage(customerId, 1, "1")
+        .flatMap(page -> page.getItems().collectList()
+            .map(items -> Tuples.of(page.getNextCursor(), items))))
+        .assertNext(page -> {
+          assertThat(page.getT1(), is("2"));
+          assertThat(page.getT2(), is(Collections.singletonList(second)));
+        })
+        .verifyComplete();
+  }
+
+  @Test
+  void getAddressPageShouldReturnPageInvalidErrorWhenCursorIsInvalid() {
+
+    StepVerifier.create(addressService.getAddressPage("customer-1", 1, "not-a-cursor"))
+        .expectErrorMatches(new ApplicationException(ErrorCode.PAGE_INVALID)::equals)
+        .verify();
+  }
+
+  @Test
+  void getAddressShouldReturnAddressServiceErrorWhenAddressIsTooLarge() {
+
+    String customerId = "customer-1";
+    String addressId = "address-1";
+
+    when(addressWebClient.getAddress(customerId, addressId))
+        .thenReturn(Mono.error(new DataBufferLimitException("Exceeded limit on max bytes")));
+
+    StepVerifier.create(addressService.getAddress(customerId, addressId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR)::equals)
+        .verify();
+  }
+
+  @Test
+  void getAddressShouldBeAnsweredFromCachedAddressList() {
+
+    Address addressResponse = ClientDataProvider.addressResponse();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId)).thenReturn(Flux.just(addressResponse));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddress(customerId, addressResponse.getId()))
+        .expectNext(addressResponse)
+        .verifyComplete();
+
+    verify(addressWebClient, times(0)).getAddress(customerId, addressResponse.getId());
+  }
+
+  @Test
+  void addAddressShouldUpdateCachedAddressList() {
+
+    Address cachedAddress = ClientDataProvider.addressResponse();
+    Address addressRequest = ClientDataProvider.addressRequest();
+    Address addressResponse = addressRequest.toBuilder().id("address-2").build();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId)).thenReturn(Flux.just(cachedAddress));
+    when(addressWebClient.createAddress(addressRequest)).thenReturn(Mono.just(addressResponse));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(cachedAddress)
+        .verifyComplete();
+    StepVerifier.create(addressService.addAddress(addressRequest))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(cachedAddress, addressResponse)
+        .verifyComplete();
+
+    verify(addressWebClient, times(1)).getAddresses(customerId);
+  }
+
+  @Test
+  void deleteAddressShouldRemoveAddressFromCachedAddressList() {
+
+    Address addressResponse = ClientDataProvider.addressResponse();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId)).thenReturn(Flux.just(addressResponse));
+    when(addressWebClient.deleteAddress(customerId, addressResponse.getId())).thenReturn(Mono.empty());
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.deleteAddress(customerId, addressResponse.getId()))
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .verifyComplete();
+
+    verify(addressWebClient, times(1)).getAddresses(customerId);
+  }
+
+  @Test
+  void deleteAddressShouldEvictCachedAddressListWhenServiceReturn5xxError() {
+
+    Address addressResponse = ClientDataProvider.addressResponse();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId)).thenReturn(Flux.just(addressResponse));
+    when(addressWebClient.deleteAddress(customerId, addressResponse.getId()))
+        .thenReturn(Mono.error(new ClientException(HttpStatus.GATEWAY_TIMEOUT, "server error")));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.deleteAddress(customerId, addressResponse.getId()))
+        .expectErrorMatches(new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR)::equals)
+        .verify();
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+
+    verify(addressWebClient, times(2)).getAddresses(customerId);
+  }
+
+  @Test
+  void addAddressListShouldSendAddressesInBatchesWhenBulkModeIsEnabled() {
+    addressService = new AddressService(addressWebClient,
+        AddressProperties.builder().bulkEnabled(true).bulkSize(2).build(),
+        AddressCacheProperties.builder().build(), FallbackProperties.builder().build(),
+        new SimpleMeterRegistry());
+
+    List<Address> addressRequest = Arrays.asList(
+        ClientDataProvider.addressRequest().toBuilder().postCode("PC1 1AA").build(),
+        ClientDataProvider.addressRequest().toBuilder().postCode("PC1 1AB").build(),
+        ClientDataProvider.addressRequest().toBuilder().postCode("PC1 1AC").build()
+    );
+
+    List<Address> addressResponse = Arrays.asList(
+        addressRequest.get(0).toBuilder().id("address-1").build(),
+        addressRequest.get(1).toBuilder().id("address-2").build(),
+        addressRequest.get(2).toBuilder().id("address-3").build()
+    );
+
+    when(addressWebClient.createAddresses(addressRequest.subList(0, 2)))
+        .thenReturn(Flux.fromIterable(addressResponse.subList(0, 2)));
+    when(addressWebClient.createAddresses(addressRequest.subList(2, 3)))
+        .thenReturn(Flux.fromIterable(addressResponse.subList(2, 3)));
+
+    StepVerifier.create(addressService.addAddressList(addressRequest))
+        .expectNextSequence(addressResponse)
+        .verifyComplete();
+  }
+
+  @Test
+  void getAddressListShouldServeLastGoodAddressListWhenServiceReturn5xxError() {
+    addressService = new AddressService(addressWebClient, AddressProperties.builder().build(),
+        AddressCacheProperties.builder().enabled(false).build(),
+        FallbackProperties.builder().build(), new SimpleMeterRegistry());
+
+    Address addressResponse = ClientDataProvider.addressResponse();
+    Staleness staleness = new Staleness();
+
+    String customerId = "customer-1";
+
+    when(addressWebClient.getAddresses(customerId))
+        .thenReturn(Flux.just(addressResponse))
+        .thenReturn(Flux.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "service unavailable")))
+        .thenReturn(Flux.just(addressResponse));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList(customerId)
+            .subscriberContext(Staleness.attach(staleness)))
+        .expectNext(addressResponse)
+        .verifyComplete();
+
+    assertThat(staleness.isStale(), is(true));
+    verify(addressWebClient, times(3)).getAddresses(customerId);
+  }
+
+  @Test
+  void addAddressShouldDropLastGoodAddressList() {
+    addressService = new AddressService(addressWebClient, AddressProperties.builder().build(),
+        AddressCacheProperties.builder().enabled(false).build(),
+        FallbackProperties.builder().build(), new SimpleMeterRegistry());
+
+    Address addressRequest = ClientDataProvider.addressRequest();
+    Address addressResponse = ClientDataProvider.addressResponse();
+
+    String customerId = addressResponse.getCustomerId();
+
+    when(addressWebClient.getAddresses(customerId))
+        .thenReturn(Flux.just(addressResponse))
+        .thenReturn(Flux.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "service unavailable")));
+    when(addressWebClient.createAddress(addressRequest)).thenReturn(Mono.just(addressResponse));
+
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.addAddress(addressRequest))
+        .expectNext(addressResponse)
+        .verifyComplete();
+    StepVerifier.create(addressService.getAddressList(customerId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR)::equals)
+        .verify();
+  }
+
+}
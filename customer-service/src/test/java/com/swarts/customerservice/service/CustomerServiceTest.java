@@ -4,14 +4,24 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.swarts.customerservice.client.address.Address;
 import com.swarts.customerservice.client.user.User;
 import com.swarts.customerservice.data.ClientDataProvider;
 import com.swarts.customerservice.data.DataProvider;
+import com.swarts.customerservice.exception.ApplicationException;
+import com.swarts.customerservice.exception.ErrorCode;
 import com.swarts.customerservice.model.Customer;
 import com.swarts.customerservice.model.CustomerAddress;
+import com.swarts.customerservice.model.CustomerBatchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,12 +37,14 @@ class CustomerServiceTest {
 
   private UserService mockUserService;
   private AddressService mockAddressService;
+  private SimpleMeterRegistry meterRegistry;
 
   @BeforeEach
   void setUp() {
     mockUserService = Mockito.mock(UserService.class);
     mockAddressService = Mockito.mock(AddressService.class);
-    customerService = new CustomerService(mockUserService, mockAddressService);
+    meterRegistry = new SimpleMeterRegistry();
+    customerService = new CustomerService(mockUserService, mockAddressService, meterRegistry);
   }
 
   @Test
@@ -51,6 +63,27 @@ class CustomerServiceTest {
         .verifyComplete();
   }
 
+  @Test
+  void shouldAddStreamedCustomer() {
+    Customer customerRequest = DataProvider.customerRequest();
+    Customer customerResponse = DataProvider.customerResponse();
+
+    when(mockAddressService.addAddresses(any())).thenAnswer(invocation ->
+        invocation.<Flux<Address>>getArgument(0)
+            .filter(ClientDataProvider.addressRequest()::equals)
+            .map(address -> ClientDataProvider.addressResponse()));
+
+    when(mockUserService.addUser(any(User.class))).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+
+    Mono<Customer> customerMono = customerService.addCustomer(
+        Mono.just(customerRequest.toBuilder().addressList(null).build()),
+        Flux.fromIterable(customerRequest.getAddressList()));
+
+    StepVerifier.create(customerMono)
+        .expectNext(customerResponse)
+        .verifyComplete();
+  }
+
   @Test
   void addCustomerShouldPassCorrectParametersToUserService() {
     Customer customerRequest = DataProvider.customerRequest();
@@ -112,6 +145,182 @@ class CustomerServiceTest {
   }
 
 
+  @Test
+  void importCustomersShouldCreateEachRecordAndReturnErrorsInline() {
+    Customer customerRequest = DataProvider.customerRequest();
+    Customer invalidRequest = customerRequest.toBuilder().email("invalid").build();
+    Customer customerResponse = DataProvider.customerResponse();
+
+    when(mockAddressService.addAddressList(any())).thenReturn(Flux.just(ClientDataProvider.addressResponse()));
+    when(mockUserService.addUser(any(User.class))).thenAnswer(invocation ->
+        "invalid".equals(invocation.<User>getArgument(0).getEmail())
+            ? Mono.error(new ApplicationException(ErrorCode.USER_INVALID_REQUEST))
+            : Mono.just(ClientDataProvider.userResponse()));
+
+    StepVerifier.create(customerService
+            .importCustomers(Flux.just(customerRequest, invalidRequest).map(Mono::just), 1,
+                Duration.ofSeconds(1)))
+        .expectNext(CustomerBatchResult.succeeded(customerResponse.getId(), customerResponse)
+            .toBuilder().index(0L).build())
+        .expectNext(CustomerBatchResult.failed(null, ErrorCode.USER_INVALID_REQUEST)
+            .toBuilder().index(1L).build())
+        .verifyComplete();
+  }
+
+  @Test
+  void importCustomersShouldRequestRecordsAsCreationsComplete() {
+    when(mockAddressService.addAddressList(any())).thenReturn(Flux.just(ClientDataProvider.addressResponse()));
+    when(mockUserService.addUser(any(User.class))).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+
+    List<Long> requested = new ArrayList<>();
+    Flux<Mono<Customer>> customers = Flux.range(0, 100)
+        .map(i -> Mono.just(DataProvider.customerRequest()))
+        .doOnRequest(requested::add);
+
+    StepVerifier.create(customerService.importCustomers(customers, 4, Duration.ofSeconds(1)))
+        .expectNextCount(100)
+        .verifyComplete();
+
+    assertThat(requested.stream().allMatch(n -> n <= 4), is(true));
+  }
+
+  @Test
+  void importCustomersShouldCreateCustomerWithoutAddressList() {
+    when(mockAddressService.addAddressList(Collections.emptyList())).thenReturn(Flux.empty());
+    when(mockUserService.addUser(any(User.class))).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+    Customer customerResponse = DataProvider.customerResponse().toBuilder()
+        .addressList(Collections.emptyList())
+        .build();
+
+    Flux<Mono<Customer>> records = Flux.just(
+        Mono.just(DataProvider.customerRequest().toBuilder().addressList(null).build()));
+
+    StepVerifier.create(customerService.importCustomers(records, 1, Duration.ofSeconds(1)))
+        .expectNext(CustomerBatchResult.succeeded(customerResponse.getId(), customerResponse)
+            .toBuilder().index(0L).build())
+        .verifyComplete();
+  }
+
+  @Test
+  void importCustomersShouldReturnUnreadableRecordsInline() {
+    when(mockAddressService.addAddressList(any())).thenReturn(Flux.just(ClientDataProvider.addressResponse()));
+    when(mockUserService.addUser(any(User.class))).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+    Customer customerResponse = DataProvider.customerResponse();
+
+    Flux<Mono<Customer>> records = Flux.just(
+        Mono.error(new ApplicationException(ErrorCode.CUSTOMER_IMPORT_RECORD_INVALID)),
+        Mono.just(DataProvider.customerRequest()));
+
+    StepVerifier.create(customerService.importCustomers(records, 1, Duration.ofSeconds(1)))
+        .expectNext(CustomerBatchResult.failed(null, ErrorCode.CUSTOMER_IMPORT_RECORD_INVALID)
+            .toBuilder().index(0L).build())
+        .expectNext(CustomerBatchResult.succeeded(customerResponse.getId(), customerResponse)
+            .toBuilder().index(1L).build())
+        .verifyComplete();
+  }
+
+  @Test
+  void getCustomersShouldReturnErrorsInline() {
+    Customer customerResponse = DataProvider.customerResponse();
+
+    when(mockUserService.getUser("customer-1")).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+    when(mockAddressService.getAddressList("customer-1")).thenReturn(Flux.just(ClientDataProvider.addressResponse()));
+    when(mockUserService.getUser("customer-2"))
+        .thenReturn(Mono.error(new ApplicationException(ErrorCode.CUSTOMER_NOT_FOUND)));
+    when(mockAddressService.getAddressList("customer-2")).thenReturn(Flux.empty());
+
+    StepVerifier.create(customerService
+            .getCustomers(Arrays.asList("customer-1", "customer-2"), 1, Duration.ofSeconds(1)))
+        .expectNext(CustomerBatchResult.succeeded("customer-1", customerResponse))
+        .expectNext(CustomerBatchResult.failed("customer-2", ErrorCode.CUSTOMER_NOT_FOUND))
+        .verifyComplete();
+  }
+
+  @Test
+  void getCustomersShouldReturnUnexpectedErrorsInline() {
+    Customer customerResponse = DataProvider.customerResponse();
+
+    when(mockUserService.getUser("customer-1")).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+    when(mockAddressService.getAddressList("customer-1")).thenReturn(Flux.just(ClientDataProvider.addressResponse()));
+    when(mockUserService.getUser("customer-2"))
+        .thenReturn(Mono.error(new IllegalStateException("unexpected")));
+    when(mockAddressService.getAddressList("customer-2")).thenReturn(Flux.empty());
+
+    StepVerifier.create(customerService
+            .getCustomers(Arrays.asList("customer-2", "customer-1"), 1, Duration.ofSeconds(1)))
+        .expectNext(CustomerBatchResult.failed("customer-2", ErrorCode.INTERNAL_ERROR))
+        .expectNext(CustomerBatchResult.succeeded("customer-1", customerResponse))
+        .verifyComplete();
+  }
+
+  @Test
+  void getCustomerWithoutAddressesShouldNotCallAddressService() {
+    String customerId = "customer-1";
+
+    Customer customerResponse = DataProvider.customerResponse().toBuilder()
+        .addressList(null)
+        .build();
+
+    when(mockUserService.getUser(customerId)).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+
+    StepVerifier.create(customerService.getCustomerWithoutAddresses(customerId))
+        .expectNext(customerResponse)
+        .verifyComplete();
+
+    verify(mockAddressService, never()).getAddressList(customerId);
+    assertThat(meterRegistry.get("customer.downstream.calls.avoided").counter().count(), is(1.0));
+  }
+
+  @Test
+  void getCustomerShouldReturnCustomerWithoutAddressesWhenAddressesAreLate() {
+    String customerId = "customer-1";
+
+    Customer customerResponse = DataProvider.customerResponse().toBuilder()
+        .addressList(null)
+        .build();
+
+    when(mockUserService.getUser(customerId)).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+
+    when(mockAddressService.getAddressList(customerId)).thenReturn(Flux.never());
+
+    StepVerifier.create(customerService.getCustomer(customerId, Duration.ofMillis(50)))
+        .expectNext(customerResponse)
+        .verifyComplete();
+  }
+
+  @Test
+  void getCustomerShouldReturnCustomerWithoutAddressesWhenAddressServiceFails() {
+    String customerId = "customer-1";
+
+    Customer customerResponse = DataProvider.customerResponse().toBuilder()
+        .addressList(null)
+        .build();
+
+    when(mockUserService.getUser(customerId)).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+
+    when(mockAddressService.getAddressList(customerId))
+        .thenReturn(Flux.error(new ApplicationException(ErrorCode.ADDRESS_SERVICE_ERROR)));
+
+    StepVerifier.create(customerService.getCustomer(customerId, Duration.ofMillis(50)))
+        .expectNext(customerResponse)
+        .verifyComplete();
+  }
+
+  @Test
+  void getCustomerShouldReturnAddressesWhenTheyArriveWithinAddressTimeout() {
+    String customerId = "customer-1";
+
+    Customer customerResponse = DataProvider.customerResponse();
+
+    when(mockUserService.getUser(customerId)).thenReturn(Mono.just(ClientDataProvider.userResponse()));
+
+    when(mockAddressService.getAddressList(customerId)).thenReturn(Flux.just(ClientDataProvider.addressResponse()));
+
+    StepVerifier.create(customerService.getCustomer(customerId, Duration.ofSeconds(1)))
+        .expectNext(customerResponse)
+        .verifyComplete();
+  }
+
   @Test
   void shouldGetCustomerAddressList() {
     String customerId = "customer-1";
@@ -1,19 +1,27 @@
 package com.swarts.customerservice.service;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.swarts.customerservice.client.ClientException;
+import com.swarts.customerservice.client.DeadlineExceededException;
 import com.swarts.customerservice.client.user.User;
+import com.swarts.customerservice.client.user.UserCacheProperties;
 import com.swarts.customerservice.client.user.UserWebClient;
 import com.swarts.customerservice.data.ClientDataProvider;
 import com.swarts.customerservice.exception.ApplicationException;
 import com.swarts.customerservice.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.context.Context;
 
 class UserServiceTest {
 
@@ -24,7 +32,8 @@ class UserServiceTest {
   void setUp() {
     userWebClient = Mockito.mock(UserWebClient.class);
 
-    userService = new UserService(userWebClient);
+    userService = new UserService(userWebClient, UserCacheProperties.builder().build(),
+        FallbackProperties.builder().build(), new SimpleMeterRegistry());
   }
 
   @Test
@@ -111,4 +120,187 @@ class UserServiceTest {
         .verify();
   }
 
-}
\ No newline at end of file
+  @Test
+  void getUserShouldReturnDeadlineExceededErrorWhenDeadlineExpires() {
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId))
+        .thenReturn(Mono.error(new DeadlineExceededException()));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.DEADLINE_EXCEEDED)::equals)
+        .verify();
+  }
+
+  @Test
+  void getUserShouldReturnCachedUser() {
+    User userResponse = ClientDataProvider.userResponse();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId)).thenReturn(Mono.just(userResponse));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+
+    verify(userWebClient, times(1)).getUser(userId);
+  }
+
+  @Test
+  void getUserShouldLoadUserInCallerContextOnlyWhenSubscribed() {
+    User userResponse = ClientDataProvider.userResponse();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId)).thenReturn(Mono.subscriberContext()
+        .filter(context -> context.hasKey("request"))
+        .map(context -> userResponse));
+
+    Mono<User> userMono = userService.getUser(userId);
+
+    verify(userWebClient, times(0)).getUser(userId);
+
+    StepVerifier.create(userMono.subscriberContext(Context.of("request", "request-1")))
+        .expectNext(userResponse)
+        .verifyComplete();
+  }
+
+  @Test
+  void getUserShouldNotCacheErrors() {
+    User userResponse = ClientDataProvider.userResponse();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId))
+        .thenReturn(Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "service unavailable")))
+        .thenReturn(Mono.just(userResponse));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.USER_SERVICE_ERROR)::equals)
+        .verify();
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+  }
+
+  @Test
+  void addUserShouldPopulateCache() {
+    User userRequest = ClientDataProvider.userRequest();
+    User userResponse = ClientDataProvider.userResponse();
+
+    when(userWebClient.addUser(userRequest)).thenReturn(Mono.just(userResponse));
+
+    StepVerifier.create(userService.addUser(userRequest))
+        .expectNext(userResponse)
+        .verifyComplete();
+    StepVerifier.create(userService.getUser(userResponse.getId()))
+        .expectNext(userResponse)
+        .verifyComplete();
+
+    verify(userWebClient, times(0)).getUser(userResponse.getId());
+  }
+
+  @Test
+  void getUserShouldCallUserServiceEveryTimeWhenCacheIsDisabled() {
+    userService = new UserService(userWebClient,
+        UserCacheProperties.builder().enabled(false).build(), FallbackProperties.builder().build(),
+        new SimpleMeterRegistry());
+
+    User userResponse = ClientDataProvider.userResponse();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId)).thenReturn(Mono.just(userResponse));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+
+    verify(userWebClient, times(2)).getUser(userId);
+  }
+
+  @Test
+  void getUserShouldServeLastGoodUserWhenServiceReturn5xxError() {
+    userService = new UserService(userWebClient,
+        UserCacheProperties.builder().enabled(false).build(), FallbackProperties.builder().build(),
+        new SimpleMeterRegistry());
+
+    User userResponse = ClientDataProvider.userResponse();
+    Staleness staleness = new Staleness();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId))
+        .thenReturn(Mono.just(userResponse))
+        .thenReturn(Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "service unavailable")))
+        .thenReturn(Mono.just(userResponse));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+    StepVerifier.create(userService.getUser(userId).subscriberContext(Staleness.attach(staleness)))
+        .expectNext(userResponse)
+        .verifyComplete();
+
+    assertThat(staleness.isStale(), is(true));
+    verify(userWebClient, times(3)).getUser(userId);
+  }
+
+  @Test
+  void getUserShouldReloadServedUserAtMostOncePerReloadInterval() {
+    userService = new UserService(userWebClient,
+        UserCacheProperties.builder().enabled(false).build(), FallbackProperties.builder().build(),
+        new SimpleMeterRegistry());
+
+    User userResponse = ClientDataProvider.userResponse();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId))
+        .thenReturn(Mono.just(userResponse))
+        .thenReturn(Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "service unavailable")));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+    for (int i = 0; i < 3; i++) {
+      StepVerifier.create(userService.getUser(userId))
+          .expectNext(userResponse)
+          .verifyComplete();
+    }
+
+    // the first read, three failed reads and a single reload
+    verify(userWebClient, times(5)).getUser(userId);
+  }
+
+  @Test
+  void getUserShouldReturnUserServiceErrorWhenFallbackIsDisabled() {
+    userService = new UserService(userWebClient,
+        UserCacheProperties.builder().enabled(false).build(),
+        FallbackProperties.builder().enabled(false).build(), new SimpleMeterRegistry());
+
+    User userResponse = ClientDataProvider.userResponse();
+
+    String userId = "user-1";
+
+    when(userWebClient.getUser(userId))
+        .thenReturn(Mono.just(userResponse))
+        .thenReturn(Mono.error(new ClientException(HttpStatus.SERVICE_UNAVAILABLE, "service unavailable")));
+
+    StepVerifier.create(userService.getUser(userId))
+        .expectNext(userResponse)
+        .verifyComplete();
+    StepVerifier.create(userService.getUser(userId))
+        .expectErrorMatches(new ApplicationException(ErrorCode.USER_SERVICE_ERROR)::equals)
+        .verify();
+  }
+
+}
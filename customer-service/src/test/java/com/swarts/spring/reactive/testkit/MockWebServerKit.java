@@ -78,6 +78,17 @@ public class MockWebServerKit {
     return this;
   }
 
+  public MockWebServerKit prepareRawMockResponseWith(HttpStatus status, String responseBody, Map<String, String> headers) {
+    prepareResponse(response -> {
+      response
+          .setResponseCode(status.value())
+          .setBody(responseBody);
+      headers.forEach(response::addHeader);
+    });
+
+    return this;
+  }
+
   private void prepareResponse(Consumer<MockResponse> consumer) {
     MockResponse response = new MockResponse();
     consumer.accept(response);